@@ -0,0 +1,24 @@
+package com.lagnashree.customermanagement.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CacheStatistics {
+    long hits;
+    long misses;
+    long evictions;
+    // new entries the admission policy turned away because the oldest entry was used more often
+    long rejections;
+    long size;
+
+    /**
+     * This function returns the share of lookups that were served from the cache.
+     * @return hit rate between 0 and 1.
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,220 @@
+package com.lagnashree.customermanagement.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of the response DTOs built for a (personId, requestType) pair. All views of a customer are dropped when the
+ * customer is patched, and the whole cache is dropped when the repository loads a new snapshot of the data file.
+ * <p>
+ * A view built from a record that was patched while the view was being built must not be cached. Callers therefore
+ * take a stamp of the customer before reading the record and hand it to put, which refuses the view once the customer
+ * has been invalidated since the stamp. Stamps are kept per stripe of personIds, so a patch only refuses the views
+ * being built for the customers of its stripe.
+ * <p>
+ * A patch is bracketed by beginInvalidation and endInvalidation. In between the views of its stripe are neither
+ * served nor cached, so a view built from the record before the patch is never served next to the newer version,
+ * which conditional requests rely on when they compare ETags. A hit therefore costs no read of the record.
+ * <p>
+ * A cached view also keeps its JSON encoding, and optionally the gzipped JSON, once it has been serialised, so
+ * responses of hot views can be written without running Jackson again.
+ */
+@Component
+@Slf4j
+public class CustomerViewCache {
+    private static final CustomerView[] VIEWS = CustomerView.values();
+    private static final int INVALIDATION_STRIPES = 256;
+
+    private final CustomerManagementRepository customerManagementRepository;
+    private final ObjectMapper objectMapper;
+    private final TinyLfuCache<ViewKey, CachedView> cache;
+    // invalidations of each stripe, and the patches of each stripe that are in progress
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final AtomicIntegerArray pendingInvalidations = new AtomicIntegerArray(INVALIDATION_STRIPES);
+    private volatile long repositoryGeneration;
+
+    public CustomerViewCache(CustomerManagementRepository customerManagementRepository, ObjectMapper objectMapper,
+                             @Value("${customer.cache.maximum-size:10000}") int maximumSize) {
+        this.customerManagementRepository = customerManagementRepository;
+        this.objectMapper = objectMapper;
+        this.cache = new TinyLfuCache<>(maximumSize);
+        this.repositoryGeneration = customerManagementRepository.getGeneration();
+    }
+
+    /**
+     * This function returns the cached view of a customer.
+     * @param personId personId of the customer
+     * @param view view that was requested
+     * @param type class of the view DTO
+     * @return the cached DTO, or null if the view is not cached or the customer is being patched.
+     */
+    public <T> T get(String personId, CustomerView view, Class<T> type) {
+        checkRepositoryGeneration();
+        if (pendingInvalidations.get(stripeOf(personId)) != 0) {
+            return null;
+        }
+        CachedView cached = cache.get(new ViewKey(personId, view));
+        return cached == null ? null : type.cast(cached.dto);
+    }
+
+    /**
+     * This function returns the JSON encoding of a view DTO. The encoding is kept with the cached view, so it is only
+     * built once per cached view; a DTO that is not the cached one is encoded on every call.
+     * @param personId personId of the customer
+     * @param view view of the DTO
+     * @param dto DTO returned for the view
+     * @param gzip whether to return the gzipped encoding
+     * @return UTF-8 JSON bytes of the DTO, gzipped if requested.
+     * @throws IOException If the DTO can not be serialised
+     */
+    public byte[] getEncoded(String personId, CustomerView view, Object dto, boolean gzip) throws IOException {
+        CachedView cached = cache.peek(new ViewKey(personId, view));
+        if (cached == null || cached.dto != dto) {
+            byte[] json = objectMapper.writeValueAsBytes(dto);
+            return gzip ? gzip(json) : json;
+        }
+        byte[] json = cached.json;
+        if (json == null) {
+            json = objectMapper.writeValueAsBytes(dto);
+            cached.json = json;
+        }
+        if (!gzip) {
+            return json;
+        }
+        byte[] gzipped = cached.gzip;
+        if (gzipped == null) {
+            gzipped = gzip(json);
+            cached.gzip = gzipped;
+        }
+        return gzipped;
+    }
+
+    /**
+     * This function returns the stamp to pass to put for a view of the customer that is about to be built.
+     * @param personId personId of the customer
+     * @return current invalidation stamp of the customer
+     */
+    public long stamp(String personId) {
+        checkRepositoryGeneration();
+        return invalidations.get(stripeOf(personId));
+    }
+
+    /**
+     * This function caches the view of a customer unless the customer has been invalidated since the stamp was taken
+     * or is being patched.
+     * @param personId personId of the customer
+     * @param view view that was built
+     * @param dto DTO of the view
+     * @param stamp stamp taken before the customer record was read
+     */
+    public void put(String personId, CustomerView view, Object dto, long stamp) {
+        checkRepositoryGeneration();
+        int stripe = stripeOf(personId);
+        if (invalidations.get(stripe) != stamp || pendingInvalidations.get(stripe) != 0) {
+            return;
+        }
+        ViewKey key = new ViewKey(personId, view);
+        CachedView cached = new CachedView(dto);
+        cache.put(key, cached);
+        // an invalidation that slipped in between the check and the put removes the view again here
+        if (invalidations.get(stripe) != stamp) {
+            cache.invalidate(key, cached);
+        }
+    }
+
+    /**
+     * This function drops all cached views of a customer that is about to be patched. Until the matching
+     * endInvalidation the views of its stripe are neither served nor cached.
+     * @param personId personId of the customer
+     */
+    public void beginInvalidation(String personId) {
+        int stripe = stripeOf(personId);
+        pendingInvalidations.incrementAndGet(stripe);
+        invalidate(personId, stripe);
+    }
+
+    /**
+     * This function drops the views of a patched customer that were cached from the record before the patch, and
+     * serves and caches the views of its stripe again. Call it once the patch is visible, also when it failed.
+     * @param personId personId of the customer
+     */
+    public void endInvalidation(String personId) {
+        int stripe = stripeOf(personId);
+        invalidate(personId, stripe);
+        pendingInvalidations.decrementAndGet(stripe);
+    }
+
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    @PreDestroy
+    public void logStatistics() {
+        CacheStatistics statistics = getStatistics();
+        log.info("Customer view cache served {} hits and {} misses (hit rate {}), {} evictions, {} rejected admissions",
+                statistics.getHits(), statistics.getMisses(), String.format("%.2f", statistics.getHitRate()),
+                statistics.getEvictions(), statistics.getRejections());
+    }
+
+    private void invalidate(String personId, int stripe) {
+        invalidations.incrementAndGet(stripe);
+        for (CustomerView view : VIEWS) {
+            cache.invalidate(new ViewKey(personId, view));
+        }
+    }
+
+    private static int stripeOf(String personId) {
+        return Math.floorMod(personId.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    private void checkRepositoryGeneration() {
+        long generation = customerManagementRepository.getGeneration();
+        if (generation != repositoryGeneration) {
+            synchronized (this) {
+                if (generation != repositoryGeneration) {
+                    for (int stripe = 0; stripe < INVALIDATION_STRIPES; stripe++) {
+                        invalidations.incrementAndGet(stripe);
+                    }
+                    cache.invalidateAll();
+                    repositoryGeneration = generation;
+                }
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(json);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class CachedView {
+        private final Object dto;
+        // encodings are derived from the immutable dto, racing writers store equal bytes
+        private volatile byte[] json;
+        private volatile byte[] gzip;
+
+        private CachedView(Object dto) {
+            this.dto = dto;
+        }
+    }
+
+    @lombok.Value
+    private static class ViewKey {
+        String personId;
+        CustomerView view;
+    }
+}
@@ -0,0 +1,75 @@
+package com.lagnashree.customermanagement.cache;
+
+/**
+ * Count-min sketch with 4-bit counters that estimates how often a key has been seen recently. Every counter is
+ * halved once the number of recorded accesses reaches ten times the cache size, so old popularity fades away.
+ * Not thread-safe, TinyLfuCache guards it with its eviction lock.
+ */
+final class FrequencySketch {
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int[] SEEDS = {0x97CB3127, 0xB6A3BFA5, 0x8B1E8E31, 0x4A9F7C0D};
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        // one 64-bit word, i.e. 16 counters, per cache entry keeps collisions rare
+        this.table = new long[Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 16);
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), counterOf(hash, i));
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int shift = counterOf(hash, i) << 2;
+            frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> shift) & 0xFL));
+        }
+        return frequency;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int shift = counter << 2;
+        long mask = 0xFL << shift;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << shift;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        int h = (hash + SEEDS[i]) * SEEDS[i];
+        return (h ^ (h >>> 16)) & tableMask;
+    }
+
+    private static int counterOf(int hash, int i) {
+        return (hash >>> (i << 3)) & 0xF;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 17);
+    }
+}
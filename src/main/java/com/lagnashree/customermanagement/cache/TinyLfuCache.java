@@ -0,0 +1,153 @@
+package com.lagnashree.customermanagement.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded cache that decides what to keep by how often keys have been requested recently. Reads go straight to
+ * a ConcurrentHashMap. When the cache is full a new entry is only admitted if its estimated frequency beats the one
+ * of the oldest entry; an oldest entry that wins gets a second chance at the back of the queue, so hot keys are not
+ * pushed out by a burst of one-off lookups.
+ */
+public final class TinyLfuCache<K, V> {
+    private final int maximumSize;
+    private final Map<K, V> data;
+    private final LinkedHashSet<K> order = new LinkedHashSet<>();
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.data = new ConcurrentHashMap<>(Math.min(maximumSize, 1 << 16));
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * This function returns the cached value of the key and records the access for the admission policy.
+     * @param key key to look up
+     * @return the cached value, or null if the key is not cached.
+     */
+    public V get(K key) {
+        V value = data.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        // accesses that meet a busy lock are not counted, the sketch only needs an estimate
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * This function returns the cached value of the key without counting it as an access.
+     * @param key key to look up
+     * @return the cached value, or null if the key is not cached.
+     */
+    public V peek(K key) {
+        return data.get(key);
+    }
+
+    /**
+     * This function caches the value of the key, evicting the less frequently used of the new and the oldest entry
+     * if the cache is full.
+     * @param key key of the value
+     * @param value value to cache
+     */
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            if (data.containsKey(key)) {
+                data.put(key, value);
+                return;
+            }
+            while (data.size() >= maximumSize) {
+                Iterator<K> oldest = order.iterator();
+                K victim = oldest.next();
+                oldest.remove();
+                if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                    order.add(victim);
+                    rejections.increment();
+                    return;
+                }
+                data.remove(victim);
+                evictions.increment();
+            }
+            order.add(key);
+            data.put(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * This function removes the key from the cache.
+     * @param key key to remove
+     */
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            order.remove(key);
+            data.remove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * This function removes the key from the cache if it is still mapped to the given value.
+     * @param key key to remove
+     * @param value value the key must be mapped to
+     */
+    public void invalidate(K key, V value) {
+        evictionLock.lock();
+        try {
+            if (data.remove(key, value)) {
+                order.remove(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            order.clear();
+            data.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public CacheStatistics getStatistics() {
+        return CacheStatistics.builder()
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .rejections(rejections.sum())
+                .size(data.size())
+                .build();
+    }
+}
@@ -1,56 +1,409 @@
 package com.lagnashree.customermanagement.controller;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.dto.BatchDetailRequestDTO;
+import com.lagnashree.customermanagement.dto.BatchDetailResponseDTO;
 import com.lagnashree.customermanagement.dto.CustomerDTO;
 import com.lagnashree.customermanagement.dto.PatchBankDetailDTO;
+import com.lagnashree.customermanagement.dto.PhoneNumberSearchResultDTO;
+import com.lagnashree.customermanagement.dto.SearchResultDTO;
 import com.lagnashree.customermanagement.exception.InternalException;
 import com.lagnashree.customermanagement.exception.InvalidInputException;
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
+import com.lagnashree.customermanagement.logging.SamplingTurboFilter;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.CustomerSearchIndex;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.service.BankDetailBulkImporter;
 import com.lagnashree.customermanagement.service.CustomerManagementService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 @RestController
 @Validated
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerManagementController {
     private final CustomerManagementService customerManagementService;
+    private final CustomerViewCache customerViewCache;
+    private final ObjectMapper objectMapper;
+    private final BankDetailBulkImporter bankDetailBulkImporter;
+    private final FieldProjections fieldProjections;
+
+    // write the cached JSON bytes of a view instead of serialising the DTO on every request
+    @Value("${customer.cache.serialized-responses.enabled:false}")
+    private boolean serializedResponses;
+
+    @Value("${customer.cache.serialized-responses.gzip:false}")
+    private boolean gzipResponses;
+
+    // gzip or deflate batch and export responses for clients sending Accept-Encoding
+    @Value("${customer.compression.enabled:false}")
+    private boolean compressResponses;
+
+    @Value("${customer.compression.min-response-size:2048}")
+    private int compressionMinResponseSize;
+
+    /**
+     * This function returns the requested view of a customer. The response carries an ETag and a Last-Modified date
+     * of the customer record; a request whose If-None-Match or If-Modified-Since still matches is answered with 304
+     * before the view is built. With a fields parameter only the listed properties of the view are written. The body
+     * is CBOR or Smile instead of JSON when the Accept header prefers them. Errors are logged once, where they are
+     * raised, and not again here.
+     */
     @GetMapping("/getDetails/person/{personId}/request/{requestType}")
-    public ResponseEntity<?> getCustomerDetails(@PathVariable @NotEmpty String personId, @PathVariable @NotEmpty String requestType) throws InvalidInputException, InternalException {
+    public ResponseEntity<?> getCustomerDetails(@PathVariable @NotEmpty String personId, @PathVariable @NotEmpty String requestType,
+                                                @RequestParam(required = false) String fields,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                WebRequest webRequest) throws InvalidInputException, InternalException {
+        log.info(SamplingTurboFilter.SAMPLED, "Request received for {} with personId={}", requestType, personId);
+
+        CustomerView view = requestView(requestType);
+        // the revision is read before the view, so the ETag is never newer than the body it is sent with
+        CustomerRevision revision = customerManagementService.getCustomerRevision(personId);
+        if (revision != null && webRequest.checkNotModified(revision.getETag(), revision.getLastModified().toEpochMilli())) {
+            return null;
+        }
+        Object details = customerDetails(customerManagementService, personId, view);
+        ResponseFormat format = ResponseFormat.negotiate(accept);
+        if (fields != null) {
+            return projectedResponse(fieldProjections, view, details, fields, format);
+        }
+        // the serialised response cache holds JSON, binary formats are encoded by the message converters
+        if (!serializedResponses || format != ResponseFormat.JSON) {
+            return new ResponseEntity<>(details, HttpStatus.OK);
+        }
+        return serializedResponse(customerViewCache, gzipResponses, personId, view, details, acceptEncoding);
+    }
+
+    /**
+     * This function maps the requestType path segment to the view it requests.
+     * @param String, requestType of the request
+     * @return CustomerView of the requestType
+     * @throws InvalidInputException If the requestType is not a view of a customer
+     */
+    static CustomerView requestView(String requestType) throws InvalidInputException {
+        switch (requestType) {
+            case "personalDetails":
+                return CustomerView.PERSONAL_DETAILS;
+            case "bankDetails":
+                return CustomerView.BANK_DETAILS;
+            case "qualifications":
+                return CustomerView.QUALIFICATIONS;
+            case "fullProfile":
+                return CustomerView.FULL_PROFILE;
+            default:
+                log.error("requestType is not valid: {}", requestType);
+                throw new InvalidInputException("invalid requestType value");
+        }
+    }
+
+    /**
+     * This function returns the DTO of the given view of a customer.
+     * @param CustomerManagementService, service building the view
+     * @param String, personId of the customer
+     * @param CustomerView, view returned by requestView
+     * @return DTO of the view
+     */
+    static Object customerDetails(CustomerManagementService customerManagementService, String personId, CustomerView view) throws InvalidInputException, InternalException {
+        switch (view) {
+            case PERSONAL_DETAILS:
+                return customerManagementService.getCustomerPersonalDetails(personId);
+            case BANK_DETAILS:
+                return customerManagementService.getCustomerBankDetails(personId);
+            case QUALIFICATIONS:
+                return customerManagementService.getCustomerQualificationsDetails(personId);
+            case FULL_PROFILE:
+                return customerManagementService.getCustomerFullProfile(personId);
+            default:
+                throw new InvalidInputException("invalid requestType value");
+        }
+    }
+
+    /**
+     * This function writes only the given fields of a view. The view itself is complete, it is built or taken from
+     * the view cache like an unprojected one. Projected bodies bypass the serialised response cache, which holds
+     * complete views only.
+     * @param FieldProjections, projections of the application
+     * @param CustomerView, view the details were built for
+     * @param Object, DTO of the view
+     * @param String, value of the fields parameter
+     * @param ResponseFormat, format negotiated from the Accept header
+     * @return ResponseEntity with the projected body
+     * @throws InvalidInputException If the fields value is not a list of property paths
+     * @throws InternalException If the view can not be serialised
+     */
+    static ResponseEntity<byte[]> projectedResponse(FieldProjections fieldProjections, CustomerView view, Object details,
+                                                    String fields, ResponseFormat format) throws InvalidInputException, InternalException {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(format.getMediaType())
+                    .body(fieldProjections.write(details, fields, format));
+        } catch (JsonProcessingException e) {
+            log.error("Exception while serialising fields {} of {}: {}", fields, view.getRequestType(), e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
+        }
+    }
+
+    /**
+     * This function returns the requested views of several customers. Large JSON responses are compressed when the
+     * client accepts gzip or deflate, CBOR and Smile responses are written by the message converters.
+     */
+    @PostMapping("/getDetails/batch")
+    public ResponseEntity<?> getCustomerDetailsBatch(@Valid @RequestBody BatchDetailRequestDTO batchDetailRequestDTO,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws InternalException {
+        log.info(SamplingTurboFilter.SAMPLED, "Batch request received for {} items", batchDetailRequestDTO.getItems().size());
+        BatchDetailResponseDTO batchDetailResponseDTO = customerManagementService.getCustomerDetails(batchDetailRequestDTO);
+        String coding = compressResponses ? ResponseCompression.negotiate(acceptEncoding) : null;
+        if (coding == null || ResponseFormat.negotiate(accept) != ResponseFormat.JSON) {
+            return new ResponseEntity<>(batchDetailResponseDTO, HttpStatus.OK);
+        }
         try {
-            log.info(String.format("Request received for %s with personId=%s", requestType, personId));
-
-            switch (requestType) {
-                case "personalDetails":
-                    return new ResponseEntity<>(customerManagementService.getCustomerPersonalDetails(personId), HttpStatus.OK);
-                case "bankDetails":
-                    return new ResponseEntity<>(customerManagementService.getCustomerBankDetails(personId), HttpStatus.OK);
-                case "qualifications":
-                    return new ResponseEntity<>(customerManagementService.getCustomerQualificationsDetails(personId), HttpStatus.OK);
-                default:
-                    log.error(String.format("requestType is not valid: %s", requestType));
-                    throw new InvalidInputException("invalid requestType value");
+            byte[] body = objectMapper.writeValueAsBytes(batchDetailResponseDTO);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (body.length < compressionMinResponseSize) {
+                return response.body(body);
             }
-        } catch (Exception e) {
-            log.error("in exception in controller: " + e);
-            throw e;
+            return response.header(HttpHeaders.CONTENT_ENCODING, coding)
+                    .body(ResponseCompression.compress(body, coding));
+        } catch (IOException e) {
+            log.error("Exception while encoding batch response of {} items: {}", batchDetailRequestDTO.getItems().size(), e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
+        }
+    }
+
+    /**
+     * This function returns one page of the customers holding the given city, countryCode, bank name or card payment
+     * network, answered from the search index. Several values of one field match any of them, match decides whether
+     * a customer has to match all given fields or any of them.
+     */
+    @GetMapping("/searchDetails")
+    public ResponseEntity<SearchResultDTO> searchCustomerDetails(@RequestParam(required = false) List<String> city,
+                                                                 @RequestParam(required = false) List<String> countryCode,
+                                                                 @RequestParam(required = false) List<String> bankName,
+                                                                 @RequestParam(required = false) List<String> paymentNetwork,
+                                                                 @RequestParam(defaultValue = "all") String match,
+                                                                 @RequestParam(defaultValue = "personalDetails") String requestType,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "50") int size) throws InvalidInputException {
+        log.info(SamplingTurboFilter.SAMPLED, "Search requested for {}", requestType);
+        return new ResponseEntity<>(customerManagementService.searchCustomers(
+                searchCriteria(city, countryCode, bankName, paymentNetwork), match, requestType, page, size), HttpStatus.OK);
+    }
+
+    /**
+     * This function returns one page of the customers holding the given phone number, or with match=prefix a phone
+     * number starting with it, answered from the phone number index.
+     */
+    @GetMapping("/searchDetails/phone")
+    public ResponseEntity<PhoneNumberSearchResultDTO> searchPhoneNumber(@RequestParam(required = false) String phoneNumber,
+                                                                        @RequestParam(defaultValue = "exact") String match,
+                                                                        @RequestParam(defaultValue = "0") int page,
+                                                                        @RequestParam(defaultValue = "50") int size) throws InvalidInputException {
+        log.info(SamplingTurboFilter.SAMPLED, "Phone number search requested with match {}", match);
+        return new ResponseEntity<>(customerManagementService.searchPhoneNumber(phoneNumber, match, page, size), HttpStatus.OK);
+    }
+
+    /**
+     * This function collects the values of the search parameters by indexed field.
+     */
+    static Map<CustomerSearchIndex.Field, List<String>> searchCriteria(List<String> city, List<String> countryCode,
+                                                                       List<String> bankName, List<String> paymentNetwork) {
+        Map<CustomerSearchIndex.Field, List<String>> criteria = new EnumMap<>(CustomerSearchIndex.Field.class);
+        criteria.put(CustomerSearchIndex.Field.CITY, city);
+        criteria.put(CustomerSearchIndex.Field.COUNTRY_CODE, countryCode);
+        criteria.put(CustomerSearchIndex.Field.BANK_NAME, bankName);
+        criteria.put(CustomerSearchIndex.Field.PAYMENT_NETWORK, paymentNetwork);
+        return criteria;
+    }
+
+    /**
+     * This function streams the given view of all customers matching the filters as newline-delimited JSON. Records
+     * are written one at a time to the response, so a slow client slows the export down instead of piling up memory.
+     * The stream is compressed on the fly when the client accepts gzip or deflate.
+     */
+    @GetMapping(value = "/exportDetails", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportCustomerDetails(@RequestParam(defaultValue = "customer") String requestType,
+                                                                       @RequestParam(required = false) String country,
+                                                                       @RequestParam(required = false) String countryCode,
+                                                                       @RequestParam(required = false) String city,
+                                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws InvalidInputException {
+        log.info("Export requested for {}", requestType);
+        CustomerView view = customerManagementService.getExportView(requestType);
+        Map<String, String> filters = new HashMap<>();
+        if (country != null) {
+            filters.put("country", country);
+        }
+        if (countryCode != null) {
+            filters.put("countryCode", countryCode);
+        }
+        if (city != null) {
+            filters.put("city", city);
+        }
+        String coding = compressResponses ? ResponseCompression.negotiate(acceptEncoding) : null;
+        if (coding == null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .body(out -> writeExport(view, filters, out));
+        }
+        StreamingResponseBody body = out -> {
+            try (OutputStream compressed = ResponseCompression.compress(out, coding)) {
+                writeExport(view, filters, compressed);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_ENCODING, coding)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .body(body);
+    }
+
+    private void writeExport(CustomerView view, Map<String, String> filters, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long[] records = new long[1];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            customerManagementService.exportCustomerDetails(view, filters, details -> {
+                try {
+                    generator.writeObject(details);
+                    generator.writeRaw('\n');
+                    records[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.error("Export of {} aborted after {} records: {}", view.getRequestType(), records[0], e.getMessage());
+            throw e.getCause();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Exported {} {} records in {} ms", records[0], view.getRequestType(), elapsedMillis);
+    }
+
+    /**
+     * This function builds a response from the pre-encoded JSON bytes of a view, gzipped if gzip is the coding the
+     * client prefers; a client preferring deflate gets the plain bytes, only gzip is cached.
+     * @param CustomerViewCache, cache holding the encoded views
+     * @param boolean, whether gzipped responses are enabled
+     * @param String, personId of the customer
+     * @param CustomerView, view the details were built for
+     * @param Object, DTO of the view
+     * @param String, value of the Accept-Encoding header
+     * @return ResponseEntity with the encoded JSON body
+     * @throws InternalException If the view can not be serialised
+     */
+    static ResponseEntity<byte[]> serializedResponse(CustomerViewCache customerViewCache, boolean gzipResponses, String personId,
+                                                     CustomerView view, Object details, String acceptEncoding) throws InternalException {
+        boolean gzip = gzipResponses && ResponseCompression.GZIP.equals(ResponseCompression.negotiate(acceptEncoding));
+        try {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, ResponseCompression.GZIP);
+            }
+            return response.body(customerViewCache.getEncoded(personId, view, details, gzip));
+        } catch (IOException e) {
+            log.error("Exception while serialising {} of personId={}: {}", view.getRequestType(), personId, e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
         }
     }
 
     @PatchMapping("/updateDetails/bank")
-    public ResponseEntity<CustomerDTO> patchBankDetails(@Valid @RequestBody PatchBankDetailDTO patchBankDetailsDTO) throws InternalException, InvalidInputException {
+    public ResponseEntity<CustomerDTO> patchBankDetails(@Valid @RequestBody PatchBankDetailDTO patchBankDetailsDTO,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws InternalException, InvalidInputException {
         try {
-            return new ResponseEntity<>(customerManagementService.patchBankDetails(patchBankDetailsDTO),
-                    HttpStatus.OK);
-        } catch (InvalidInputException| InternalException e) {
+            CustomerDTO customerDTO = customerManagementService.patchBankDetails(patchBankDetailsDTO, parseIfMatch(ifMatch));
+            return ResponseEntity.ok()
+                    .eTag(customerDTO.getEtag())
+                    .body(customerDTO);
+        } catch (InvalidInputException| InternalException| PreconditionFailedException e) {
             throw e;
         }
     }
+
+    /**
+     * This function applies a stream of newline-delimited bank detail patches and streams back one outcome per record
+     * followed by a summary line.
+     */
+    @PostMapping(value = "/updateDetails/bank/bulk", consumes = "application/x-ndjson")
+    public void patchBankDetailsBulk(InputStream requestBody, HttpServletResponse response) throws IOException {
+        log.info("Bulk bank detail import received");
+        bankDetailBulkImporter.importPatches(requestBody, () -> {
+            response.setContentType("application/x-ndjson");
+            return response.getOutputStream();
+        });
+    }
+
+    /**
+     * This function takes the strong ETags out of an If-Match header, a comma-separated list of ETags as sent by GET
+     * and patch responses. The patch goes ahead if any of them is the whole current ETag, including the part naming
+     * the loaded data file. Weak ETags never match an If-Match and are skipped.
+     * @param String, value of the If-Match header
+     * @return the expected ETags without quotes, or null if the header is absent or matches any revision
+     * @throws PreconditionFailedException If the header is not a list of ETags or holds no strong ETag
+     */
+    static List<String> parseIfMatch(String ifMatch) throws PreconditionFailedException {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<String> eTags = new ArrayList<>();
+        int position = 0;
+        while (position < ifMatch.length()) {
+            char c = ifMatch.charAt(position);
+            if (c == ',' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            boolean weak = ifMatch.startsWith("W/", position);
+            int start = weak ? position + 2 : position;
+            // an entity tag may hold commas, so the list is split at the quotes and not at the commas
+            int end = start < ifMatch.length() && ifMatch.charAt(start) == '"' ? ifMatch.indexOf('"', start + 1) : -1;
+            if (end < 0) {
+                throw new PreconditionFailedException("If-Match does not match the current version");
+            }
+            if (!weak) {
+                eTags.add(ifMatch.substring(start + 1, end));
+            }
+            position = end + 1;
+        }
+        if (eTags.isEmpty()) {
+            throw new PreconditionFailedException("If-Match does not match the current version");
+        }
+        return eTags;
+    }
 }
@@ -0,0 +1,148 @@
+package com.lagnashree.customermanagement.controller;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.lagnashree.customermanagement.exception.InvalidInputException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes response DTOs restricted to the fields named in a {@code fields} query parameter, for example
+ * {@code fields=name,bank.accountNumber}. A path selects a property with everything below it, the properties on the
+ * way to it are kept as containers. Properties outside the projection are skipped while serialising, their values are
+ * never written. A projection only saves the encoding and the bytes of the response: the DTO it is applied to is the
+ * complete view, decoded and built like an unprojected one or taken from the view cache. The parsed projection of
+ * every distinct fields value is kept together with its ObjectWriters, so repeated projections cost a map lookup.
+ * Projections are written in every ResponseFormat.
+ */
+@Component
+public class FieldProjections {
+    private static final String FILTER_ID = "fieldProjection";
+    private static final int MAX_CACHED_PROJECTIONS = 1024;
+
+    private final ObjectMapper[] projectingMappers = new ObjectMapper[ResponseFormat.values().length];
+    private final Map<String, ObjectWriter[]> writers = new ConcurrentHashMap<>();
+
+    public FieldProjections(ObjectMapper objectMapper) {
+        projectingMappers[ResponseFormat.JSON.ordinal()] = objectMapper.copy().addMixIn(Object.class, ProjectionFilterMixIn.class);
+        projectingMappers[ResponseFormat.CBOR.ordinal()] = Jackson2ObjectMapperBuilder.cbor().mixIn(Object.class, ProjectionFilterMixIn.class).build();
+        projectingMappers[ResponseFormat.SMILE.ordinal()] = Jackson2ObjectMapperBuilder.smile().mixIn(Object.class, ProjectionFilterMixIn.class).build();
+    }
+
+    /**
+     * This function serialises a DTO keeping only the projected fields.
+     * @param dto DTO to serialise
+     * @param fields comma-separated list of dot-separated property paths
+     * @param format body format to write
+     * @return encoded bytes of the projected DTO
+     * @throws InvalidInputException If the fields value is not a list of property paths
+     * @throws JsonProcessingException If the DTO can not be serialised
+     */
+    byte[] write(Object dto, String fields, ResponseFormat format) throws InvalidInputException, JsonProcessingException {
+        return writers(fields)[format.ordinal()].writeValueAsBytes(dto);
+    }
+
+    private ObjectWriter[] writers(String fields) throws InvalidInputException {
+        ObjectWriter[] formatWriters = writers.get(fields);
+        if (formatWriters == null) {
+            SimpleFilterProvider filters = new SimpleFilterProvider().addFilter(FILTER_ID, new ProjectionFilter(parse(fields)));
+            formatWriters = new ObjectWriter[projectingMappers.length];
+            for (int i = 0; i < projectingMappers.length; i++) {
+                formatWriters[i] = projectingMappers[i].writer(filters);
+            }
+            // distinct values are client controlled, past the limit projections are parsed per request
+            if (writers.size() < MAX_CACHED_PROJECTIONS) {
+                writers.putIfAbsent(fields, formatWriters);
+            }
+        }
+        return formatWriters;
+    }
+
+    /**
+     * This function parses a fields value into a tree of selected property names.
+     * @param fields comma-separated list of dot-separated property paths
+     * @return root Node of the projection
+     * @throws InvalidInputException If a path is empty or has an empty segment
+     */
+    static Node parse(String fields) throws InvalidInputException {
+        Node root = new Node();
+        for (String path : fields.split(",", -1)) {
+            Node node = root;
+            for (String name : path.trim().split("\\.", -1)) {
+                if (name.isEmpty()) {
+                    throw new InvalidInputException("invalid fields value");
+                }
+                node = node.children.computeIfAbsent(name, key -> new Node());
+            }
+            node.all = true;
+        }
+        return root;
+    }
+
+    /**
+     * A property of the projection. A node selected by a path keeps all of its properties, any other node only keeps
+     * its children.
+     */
+    static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean all;
+
+        boolean includes(String name) {
+            return all || children.containsKey(name);
+        }
+
+        Node child(String name) {
+            return all ? this : children.get(name);
+        }
+    }
+
+    private static final class ProjectionFilter extends SimpleBeanPropertyFilter {
+        private final Node root;
+
+        private ProjectionFilter(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer) throws Exception {
+            Node node = nodeOf(gen.getOutputContext());
+            if (node != null && node.includes(writer.getName())) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+
+        /**
+         * This function returns the projection node of the object being written in the given context, walking up
+         * through the names the enclosing objects were written under. Array elements share the node of their array.
+         */
+        private Node nodeOf(JsonStreamContext context) {
+            if (context.inRoot()) {
+                return root;
+            }
+            JsonStreamContext parent = context.getParent();
+            Node parentNode = nodeOf(parent);
+            if (parentNode == null || parent.inRoot() || parent.inArray()) {
+                return parentNode;
+            }
+            return parentNode.child(parent.getCurrentName());
+        }
+    }
+
+    @JsonFilter(FILTER_ID)
+    private static final class ProjectionFilterMixIn {
+    }
+}
@@ -0,0 +1,138 @@
+package com.lagnashree.customermanagement.controller;
+
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.dto.BatchDetailRequestDTO;
+import com.lagnashree.customermanagement.dto.BatchDetailResponseDTO;
+import com.lagnashree.customermanagement.dto.CustomerDTO;
+import com.lagnashree.customermanagement.dto.PatchBankDetailDTO;
+import com.lagnashree.customermanagement.dto.PhoneNumberSearchResultDTO;
+import com.lagnashree.customermanagement.dto.SearchResultDTO;
+import com.lagnashree.customermanagement.logging.CorrelationIdWebFilter;
+import com.lagnashree.customermanagement.logging.SamplingTurboFilter;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux counterpart of CustomerManagementController, active when the application runs with
+ * {@code spring.main.web-application-type=reactive}. The endpoints answer exactly like the servlet ones. Service calls
+ * can block, a patch waits for the write-ahead log fsync, so they run on the bounded elastic scheduler and the event
+ * loop only parses requests and writes responses. The blocking part of a request runs with its correlation id in the
+ * MDC.
+ */
+@RestController
+@Validated
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerManagementController {
+    private final CustomerManagementService customerManagementService;
+    private final CustomerViewCache customerViewCache;
+    private final FieldProjections fieldProjections;
+
+    // write the cached JSON bytes of a view instead of serialising the DTO on every request
+    @Value("${customer.cache.serialized-responses.enabled:false}")
+    private boolean serializedResponses;
+
+    @Value("${customer.cache.serialized-responses.gzip:false}")
+    private boolean gzipResponses;
+
+    @GetMapping("/getDetails/person/{personId}/request/{requestType}")
+    public Mono<ResponseEntity<?>> getCustomerDetails(@PathVariable @NotEmpty String personId, @PathVariable @NotEmpty String requestType,
+                                                      @RequestParam(required = false) String fields,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                      ServerWebExchange exchange) {
+        return CorrelationIdWebFilter.<ResponseEntity<?>>onBoundedElastic(() -> {
+                    log.info(SamplingTurboFilter.SAMPLED, "Request received for {} with personId={}", requestType, personId);
+
+                    CustomerView view = CustomerManagementController.requestView(requestType);
+                    // the revision is read before the view, so the ETag is never newer than the body it is sent with
+                    CustomerRevision revision = customerManagementService.getCustomerRevision(personId);
+                    if (revision != null && exchange.checkNotModified(revision.getETag(), revision.getLastModified())) {
+                        return null;
+                    }
+                    Object details = CustomerManagementController.customerDetails(customerManagementService, personId, view);
+                    ResponseFormat format = ResponseFormat.negotiate(accept);
+                    if (fields != null) {
+                        return CustomerManagementController.projectedResponse(fieldProjections, view, details, fields, format);
+                    }
+                    // the serialised response cache holds JSON, binary formats are encoded by the codecs
+                    if (!serializedResponses || format != ResponseFormat.JSON) {
+                        return new ResponseEntity<>(details, HttpStatus.OK);
+                    }
+                    return CustomerManagementController.serializedResponse(customerViewCache, gzipResponses, personId, view, details,
+                            acceptEncoding);
+                });
+    }
+
+    @PostMapping("/getDetails/batch")
+    public Mono<ResponseEntity<BatchDetailResponseDTO>> getCustomerDetailsBatch(@Valid @RequestBody BatchDetailRequestDTO batchDetailRequestDTO) {
+        return CorrelationIdWebFilter.onBoundedElastic(() -> {
+                    log.info(SamplingTurboFilter.SAMPLED, "Batch request received for {} items", batchDetailRequestDTO.getItems().size());
+                    return new ResponseEntity<>(customerManagementService.getCustomerDetails(batchDetailRequestDTO), HttpStatus.OK);
+                });
+    }
+
+    @GetMapping("/searchDetails")
+    public Mono<ResponseEntity<SearchResultDTO>> searchCustomerDetails(@RequestParam(required = false) List<String> city,
+                                                                       @RequestParam(required = false) List<String> countryCode,
+                                                                       @RequestParam(required = false) List<String> bankName,
+                                                                       @RequestParam(required = false) List<String> paymentNetwork,
+                                                                       @RequestParam(defaultValue = "all") String match,
+                                                                       @RequestParam(defaultValue = "personalDetails") String requestType,
+                                                                       @RequestParam(defaultValue = "0") int page,
+                                                                       @RequestParam(defaultValue = "50") int size) {
+        return CorrelationIdWebFilter.onBoundedElastic(() -> {
+                    log.info(SamplingTurboFilter.SAMPLED, "Search requested for {}", requestType);
+                    return new ResponseEntity<>(customerManagementService.searchCustomers(
+                            CustomerManagementController.searchCriteria(city, countryCode, bankName, paymentNetwork),
+                            match, requestType, page, size), HttpStatus.OK);
+                });
+    }
+
+    @GetMapping("/searchDetails/phone")
+    public Mono<ResponseEntity<PhoneNumberSearchResultDTO>> searchPhoneNumber(@RequestParam(required = false) String phoneNumber,
+                                                                              @RequestParam(defaultValue = "exact") String match,
+                                                                              @RequestParam(defaultValue = "0") int page,
+                                                                              @RequestParam(defaultValue = "50") int size) {
+        return CorrelationIdWebFilter.onBoundedElastic(() -> {
+                    log.info(SamplingTurboFilter.SAMPLED, "Phone number search requested with match {}", match);
+                    return new ResponseEntity<>(customerManagementService.searchPhoneNumber(phoneNumber, match, page, size), HttpStatus.OK);
+                });
+    }
+
+    @PatchMapping("/updateDetails/bank")
+    public Mono<ResponseEntity<CustomerDTO>> patchBankDetails(@Valid @RequestBody PatchBankDetailDTO patchBankDetailsDTO,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return CorrelationIdWebFilter.onBoundedElastic(() -> {
+                    CustomerDTO customerDTO = customerManagementService.patchBankDetails(patchBankDetailsDTO,
+                            CustomerManagementController.parseIfMatch(ifMatch));
+                    return ResponseEntity.ok()
+                            .eTag(customerDTO.getEtag())
+                            .body(customerDTO);
+                });
+    }
+}
@@ -0,0 +1,30 @@
+package com.lagnashree.customermanagement.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Serves the reactive stack from Netty. Tomcat stays on the classpath for the servlet stack and would otherwise be
+ * picked for the reactive one as well. WebFlux registers the Jackson Smile codecs on its own but not the CBOR ones,
+ * which are added here so that both stacks answer in the same formats.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfiguration implements WebFluxConfigurer {
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new Jackson2CborEncoder());
+        configurer.customCodecs().register(new Jackson2CborDecoder());
+    }
+}
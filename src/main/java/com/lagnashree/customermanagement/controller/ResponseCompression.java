@@ -0,0 +1,78 @@
+package com.lagnashree.customermanagement.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-Encoding negotiation for the large responses, batch lookups and exports. gzip is preferred over deflate when
+ * the client accepts both with the same weight.
+ */
+final class ResponseCompression {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private ResponseCompression() {
+    }
+
+    /**
+     * This function picks the content coding for a response from the Accept-Encoding header.
+     * @param acceptEncoding value of the Accept-Encoding header, may be null
+     * @return gzip, deflate, or null to send the response uncompressed
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        double gzip = 0;
+        double deflate = 0;
+        double any = 0;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                gzip = weight;
+            } else if (name.equals(DEFLATE)) {
+                deflate = weight;
+            } else if (name.equals("*")) {
+                any = weight;
+            }
+        }
+        if (gzip == 0 && deflate == 0) {
+            gzip = any;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    /**
+     * This function wraps a response stream so that everything written to it is compressed with the given coding.
+     * The returned stream must be finished by closing it.
+     */
+    static OutputStream compress(OutputStream out, String coding) throws IOException {
+        return GZIP.equals(coding) ? new GZIPOutputStream(out, 64 * 1024) : new DeflaterOutputStream(out);
+    }
+
+    static byte[] compress(byte[] bytes, String coding) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (OutputStream compressed = compress(out, coding)) {
+            compressed.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package com.lagnashree.customermanagement.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Body formats the endpoints can answer in. JSON is the default; CBOR and Smile are compact binary encodings of the
+ * same DTOs for service-to-service callers and are written by Jackson's dataformat modules.
+ */
+enum ResponseFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * This function picks the format with the highest quality in the Accept header. Wildcards and equal qualities
+     * resolve to the format listed first in the header, JSON for a wildcard.
+     * @param accept value of the Accept header, may be null
+     * @return ResponseFormat to answer in, JSON if the header names none of the formats
+     */
+    static ResponseFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        ResponseFormat selected = JSON;
+        double selectedQuality = 0;
+        try {
+            for (MediaType acceptedType : MediaType.parseMediaTypes(accept)) {
+                double quality = acceptedType.getQualityValue();
+                if (quality <= selectedQuality) {
+                    continue;
+                }
+                for (ResponseFormat format : values()) {
+                    if (acceptedType.includes(format.mediaType)) {
+                        selected = format;
+                        selectedQuality = quality;
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        return selected;
+    }
+}
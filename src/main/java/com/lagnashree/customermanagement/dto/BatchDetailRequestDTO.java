@@ -0,0 +1,33 @@
+package com.lagnashree.customermanagement.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDetailRequestDTO {
+    public static final int MAX_ITEMS = 5000;
+
+    @Valid
+    @NotEmpty
+    @Size(max = MAX_ITEMS)
+    private List<Item> items;
+
+    @Data
+    @Builder
+    public static class Item {
+        @NotEmpty
+        private String personId;
+        @NotEmpty
+        private String requestType;
+    }
+}
@@ -0,0 +1,24 @@
+package com.lagnashree.customermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchDetailResponseDTO {
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result {
+        private String personId;
+        private String requestType;
+        private String status;
+        private Object details;
+        private String error;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lagnashree.customermanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkPatchResultDTO {
+    private Long line;
+    private String personId;
+    private String status;
+    private Long version;
+    private String error;
+    private Summary summary;
+
+    @Data
+    @Builder
+    public static class Summary {
+        private long records;
+        private long succeeded;
+        private long failed;
+        private long elapsedMillis;
+        private long recordsPerSecond;
+    }
+}
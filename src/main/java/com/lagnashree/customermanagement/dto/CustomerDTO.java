@@ -1,5 +1,6 @@
 package com.lagnashree.customermanagement.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 import lombok.*;
 
@@ -18,6 +19,11 @@ public class CustomerDTO {
     private List<String> phone;
     private Bank bank;
     private Education education;
+    @JsonIgnore
+    private long version;
+    // ETag of the customer revision the DTO was built from, sent as a header and not in the body
+    @JsonIgnore
+    private String etag;
 
     @Data
     @Builder
@@ -0,0 +1,12 @@
+package com.lagnashree.customermanagement.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FullProfileDTO {
+    private PersonalDetailDTO personalDetails;
+    private BankDetailDTO bankDetails;
+    private QualificationDTO qualifications;
+}
@@ -0,0 +1,22 @@
+package com.lagnashree.customermanagement.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PhoneNumberSearchResultDTO {
+    private long total;
+    private int page;
+    private int size;
+    private List<Match> results;
+
+    @Data
+    @Builder
+    public static class Match {
+        private String phoneNumber;
+        private String personId;
+    }
+}
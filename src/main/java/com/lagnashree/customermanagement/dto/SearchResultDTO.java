@@ -0,0 +1,15 @@
+package com.lagnashree.customermanagement.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SearchResultDTO {
+    private long total;
+    private int page;
+    private int size;
+    private List<Object> results;
+}
@@ -1,10 +1,12 @@
 package com.lagnashree.customermanagement.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -30,10 +32,34 @@ public class CustomExceptionHandler {
                 .timestamp(LocalDateTime.now()).build();
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+    @ExceptionHandler(value= PreconditionFailedException.class)
+    public ResponseEntity<CustomErrorResponse> handlePreconditionFailedException(PreconditionFailedException e) {
+        CustomErrorResponse error = CustomErrorResponse.builder()
+                .description( e.getMessage())
+                .status("FAIL")
+                .timestamp(LocalDateTime.now()).build();
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+    @ExceptionHandler(value= TooManyRequestsException.class)
+    public ResponseEntity<CustomErrorResponse> handleTooManyRequestsException(TooManyRequestsException e) {
+        CustomErrorResponse error = CustomErrorResponse.builder()
+                .description( e.getMessage())
+                .status("FAIL")
+                .timestamp(LocalDateTime.now()).build();
+        return new ResponseEntity<>(error, HttpStatus.TOO_MANY_REQUESTS);
+    }
     @ExceptionHandler(value= MethodArgumentNotValidException.class)
     public ResponseEntity<CustomErrorResponse> handleValidationExceptions(MethodArgumentNotValidException e) {
+        return validationErrorResponse(e.getBindingResult());
+    }
+    @ExceptionHandler(value= WebExchangeBindException.class)
+    public ResponseEntity<CustomErrorResponse> handleWebExchangeBindException(WebExchangeBindException e) {
+        return validationErrorResponse(e.getBindingResult());
+    }
+
+    private static ResponseEntity<CustomErrorResponse> validationErrorResponse(BindingResult bindingResult) {
         Map<String, String> errors = new HashMap<>();
-        e.getBindingResult().getAllErrors().forEach((error) -> {
+        bindingResult.getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
@@ -0,0 +1,17 @@
+package com.lagnashree.customermanagement.exception;
+
+/**
+ * Thrown when a personId matches no customer. Unknown ids are a client error that scrapers can send at a high rate,
+ * so the exception records no stack trace and costs little more than its allocation. It is answered like any other
+ * invalid input.
+ */
+public class CustomerNotFoundException extends InvalidInputException {
+    public CustomerNotFoundException() {
+        super("invalid person id");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
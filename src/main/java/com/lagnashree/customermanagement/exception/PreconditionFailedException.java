@@ -0,0 +1,7 @@
+package com.lagnashree.customermanagement.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.lagnashree.customermanagement.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Correlation id of a request, taken from the X-Correlation-Id header of the request or generated when the header is
+ * missing, and put into the MDC under correlationId so that every line logged for the request carries it.
+ */
+public final class CorrelationId {
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String MDC_KEY = "correlationId";
+
+    // longer or unusual header values are replaced, they would end up verbatim in every log line of the request
+    private static final int MAX_LENGTH = 64;
+
+    private CorrelationId() {
+    }
+
+    /**
+     * This function returns the correlation id requested by the client if it is a usable one, a new one otherwise.
+     * @param requested value of the X-Correlation-Id header, null if the request has none
+     * @return correlation id of the request
+     */
+    public static String resolve(String requested) {
+        return isValid(requested) ? requested : generate();
+    }
+
+    /**
+     * This function generates a correlation id of 16 hex digits. It only has to tell requests apart in the logs, so
+     * it comes from the thread local random instead of the shared secure random of UUID.randomUUID().
+     */
+    static String generate() {
+        String digits = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return "0".repeat(16 - digits.length()) + digits;
+    }
+
+    private static boolean isValid(String requested) {
+        if (requested == null || requested.isEmpty() || requested.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requested.length(); i++) {
+            char c = requested.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
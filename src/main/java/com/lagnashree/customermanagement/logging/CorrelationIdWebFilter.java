@@ -0,0 +1,55 @@
+package com.lagnashree.customermanagement.logging;
+
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * WebFlux counterpart of CorrelationIdFilter. A reactive request hops between threads, so the correlation id is kept
+ * in the subscriber context instead of the MDC, and onBoundedElastic puts it into the MDC of the thread that runs the
+ * blocking part of a request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CorrelationIdWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String correlationId = CorrelationId.resolve(exchange.getRequest().getHeaders().getFirst(CorrelationId.HEADER));
+        exchange.getResponse().getHeaders().set(CorrelationId.HEADER, correlationId);
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(CorrelationId.MDC_KEY, correlationId));
+    }
+
+    /**
+     * This function runs a blocking call on the bounded elastic scheduler with the correlation id of the request in
+     * the MDC. A call returning null completes the Mono empty.
+     * @param callable blocking call to run
+     * @return Mono of the result of the call
+     */
+    public static <T> Mono<T> onBoundedElastic(Callable<T> callable) {
+        return Mono.deferContextual(context -> Mono.fromCallable(() -> {
+                    String correlationId = context.getOrDefault(CorrelationId.MDC_KEY, null);
+                    if (correlationId == null) {
+                        return callable.call();
+                    }
+                    MDC.put(CorrelationId.MDC_KEY, correlationId);
+                    try {
+                        return callable.call();
+                    } finally {
+                        MDC.remove(CorrelationId.MDC_KEY);
+                    }
+                }))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,15 @@
+package com.lagnashree.customermanagement.logging;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class LoggingStatistics {
+    // events discarded because the buffer of an asynchronous appender was full
+    long dropped;
+    // events whose logging thread had to wait for room in the buffer of an asynchronous appender
+    long blocked;
+    // events left out by the sampling filter
+    long sampledOut;
+}
@@ -0,0 +1,98 @@
+package com.lagnashree.customermanagement.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the counters of the asynchronous appenders and the sampling filter of the logback configuration, and warns
+ * every interval in which log events were dropped. A dropped event leaves no trace of its own, this warning is the
+ * only sign that the logs of the interval are incomplete.
+ */
+@Component
+@Slf4j
+public class LoggingStatisticsReporter {
+    @Value("${customer.logging.statistics.interval-ms:60000}")
+    private long intervalMillis;
+
+    private ScheduledExecutorService executor;
+    private long reportedDropped;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logging-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reportDropped, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        LoggingStatistics statistics = getStatistics();
+        log.info("Logging dropped {} events, {} events waited for room in the buffer, {} sampled out",
+                statistics.getDropped(), statistics.getBlocked(), statistics.getSampledOut());
+    }
+
+    /**
+     * This function adds up the counters of every RingBufferAsyncAppender and SamplingTurboFilter of the logback
+     * configuration. Without logback every counter is 0.
+     * @return LoggingStatistics since the logging system was configured
+     */
+    public LoggingStatistics getStatistics() {
+        LoggingStatistics.LoggingStatisticsBuilder statistics = LoggingStatistics.builder();
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext)) {
+            return statistics.build();
+        }
+        LoggerContext context = (LoggerContext) loggerFactory;
+        long dropped = 0;
+        long blocked = 0;
+        Set<Appender<ILoggingEvent>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Logger logger : context.getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders(); appenders.hasNext(); ) {
+                Appender<ILoggingEvent> appender = appenders.next();
+                if (appender instanceof RingBufferAsyncAppender && seen.add(appender)) {
+                    dropped += ((RingBufferAsyncAppender) appender).getDroppedCount();
+                    blocked += ((RingBufferAsyncAppender) appender).getBlockedCount();
+                }
+            }
+        }
+        long sampledOut = 0;
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof SamplingTurboFilter) {
+                sampledOut += ((SamplingTurboFilter) filter).getSampledOutCount();
+            }
+        }
+        return statistics.dropped(dropped).blocked(blocked).sampledOut(sampledOut).build();
+    }
+
+    private void reportDropped() {
+        long dropped = getStatistics().getDropped();
+        if (dropped > reportedDropped) {
+            // a warning is never dropped, it waits for room in the buffer
+            log.warn("Dropped {} log events in the last {} ms because the logging buffer was full, {} in total",
+                    dropped - reportedDropped, intervalMillis, dropped);
+            reportedDropped = dropped;
+        }
+    }
+}
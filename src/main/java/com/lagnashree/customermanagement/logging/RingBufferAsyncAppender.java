@@ -0,0 +1,193 @@
+package com.lagnashree.customermanagement.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback appender handing events to its attached appenders on a background thread, so a request thread pays for
+ * putting an event into a bounded ring buffer instead of for the layout, the encoding and the write of the line.
+ * What happens when the buffer is full is set by the overflow policy:
+ * <ul>
+ *     <li>DROP discards the event and counts it, warnings and errors excepted, they wait for room like with BLOCK</li>
+ *     <li>BLOCK makes the logging thread wait for room and counts the events that had to wait</li>
+ * </ul>
+ * On stop the events still in the buffer are written for up to maxFlushTime milliseconds.
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements AppenderAttachable<ILoggingEvent> {
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private int queueSize = 8192;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private long maxFlushTime = 1000;
+
+    private BlockingQueue<ILoggingEvent> buffer;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1) {
+            addError("Invalid queueSize " + queueSize);
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addWarn("No appender attached to " + getName());
+        }
+        // an array used as a ring: taking and putting events moves two indexes, nothing is allocated per event
+        buffer = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drain, "logging-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        worker.interrupt();
+        try {
+            worker.join(maxFlushTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            addWarn(buffer.size() + " events were still queued after " + maxFlushTime + " ms and are discarded");
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // thread name, formatted message and MDC are read on the logging thread, the worker can not see them later
+        event.prepareForDeferredProcessing();
+        if (buffer.offer(event)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP && !event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            dropped.increment();
+            return;
+        }
+        blocked.increment();
+        try {
+            buffer.put(event);
+        } catch (InterruptedException e) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<ILoggingEvent> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        try {
+            while (isStarted()) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                write(batch);
+            }
+        } catch (InterruptedException e) {
+            // stopped, write what is left
+        }
+        write(batch);
+        while (buffer.drainTo(batch, DRAIN_BATCH_SIZE) > 0) {
+            write(batch);
+        }
+    }
+
+    private void write(List<ILoggingEvent> batch) {
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(event);
+        }
+        batch.clear();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(long maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
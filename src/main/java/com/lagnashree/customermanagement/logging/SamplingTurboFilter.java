@@ -0,0 +1,51 @@
+package com.lagnashree.customermanagement.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback turbo filter letting one in rate of the info and lower events marked SAMPLED through and counting the
+ * others. It is meant for lines logged on every request: they still show the traffic and its correlation ids without
+ * a line per request. Warnings and errors are never sampled. A turbo filter runs before the message is formatted,
+ * so a sampled out event costs a random number.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final LongAdder sampledOut = new LongAdder();
+
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (rate <= 1 || marker == null || !marker.contains(SAMPLED) || level.isGreaterOrEqual(Level.WARN)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        // a random pick instead of a shared counter, request threads would contend on the counter
+        if (ThreadLocalRandom.current().nextInt(rate) == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOut.increment();
+        return FilterReply.DENY;
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,92 @@
+package com.lagnashree.customermanagement.model;
+
+import java.util.Arrays;
+
+/**
+ * Digit trie of the ITU-T E.164 country calling codes. Calling codes are prefix-free, so the first code node reached
+ * while walking the digits of an international number is its calling code. Nodes are rows of a flat child table,
+ * every code node holds the shared "+code" string, so parsed numbers never allocate their code.
+ */
+final class CallingCodeTrie {
+    static final CallingCodeTrie ITU = new CallingCodeTrie(
+            // zone 1, the North American Numbering Plan
+            "1",
+            // zone 2, Africa and a few islands
+            "20", "211", "212", "213", "216", "218", "220", "221", "222", "223", "224", "225", "226", "227", "228",
+            "229", "230", "231", "232", "233", "234", "235", "236", "237", "238", "239", "240", "241", "242", "243",
+            "244", "245", "246", "247", "248", "249", "250", "251", "252", "253", "254", "255", "256", "257", "258",
+            "260", "261", "262", "263", "264", "265", "266", "267", "268", "269", "27", "290", "291", "297", "298", "299",
+            // zones 3 and 4, Europe
+            "30", "31", "32", "33", "34", "350", "351", "352", "353", "354", "355", "356", "357", "358", "359", "36",
+            "370", "371", "372", "373", "374", "375", "376", "377", "378", "379", "380", "381", "382", "383", "385",
+            "386", "387", "389", "39", "40", "41", "420", "421", "423", "43", "44", "45", "46", "47", "48", "49",
+            // zone 5, South and Central America
+            "500", "501", "502", "503", "504", "505", "506", "507", "508", "509", "51", "52", "53", "54", "55", "56",
+            "57", "58", "590", "591", "592", "593", "594", "595", "596", "597", "598", "599",
+            // zone 6, Southeast Asia and Oceania
+            "60", "61", "62", "63", "64", "65", "66", "670", "672", "673", "674", "675", "676", "677", "678", "679",
+            "680", "681", "682", "683", "685", "686", "687", "688", "689", "690", "691", "692",
+            // zone 7, Russia and Kazakhstan
+            "7",
+            // zone 8, East Asia and global services
+            "800", "808", "81", "82", "84", "850", "852", "853", "855", "856", "86", "870", "878", "880", "881", "882",
+            "883", "886", "888",
+            // zone 9, West, Central and South Asia
+            "90", "91", "92", "93", "94", "95", "960", "961", "962", "963", "964", "965", "966", "967", "968", "970",
+            "971", "972", "973", "974", "975", "976", "977", "979", "98", "991", "992", "993", "994", "995", "996", "998");
+
+    private static final int RADIX = 10;
+
+    // children[node * RADIX + digit] is the child node, 0 if there is none; node 0 is the root
+    private int[] children;
+    private String[] codes;
+    private int nodeCount = 1;
+
+    CallingCodeTrie(String... callingCodes) {
+        children = new int[RADIX * 64];
+        codes = new String[64];
+        for (String callingCode : callingCodes) {
+            add(callingCode);
+        }
+        children = Arrays.copyOf(children, nodeCount * RADIX);
+        codes = Arrays.copyOf(codes, nodeCount);
+    }
+
+    private void add(String callingCode) {
+        int node = 0;
+        for (int i = 0; i < callingCode.length(); i++) {
+            if (codes[node] != null) {
+                throw new IllegalArgumentException("calling code " + callingCode + " extends calling code " + codes[node]);
+            }
+            int slot = node * RADIX + callingCode.charAt(i) - '0';
+            if (children[slot] == 0) {
+                if (nodeCount == codes.length) {
+                    children = Arrays.copyOf(children, children.length * 2);
+                    codes = Arrays.copyOf(codes, codes.length * 2);
+                }
+                children[slot] = nodeCount++;
+            }
+            node = children[slot];
+        }
+        for (int digit = 0; digit < RADIX; digit++) {
+            if (children[node * RADIX + digit] != 0) {
+                throw new IllegalArgumentException("calling code " + callingCode + " is a prefix of another calling code");
+            }
+        }
+        codes[node] = "+" + callingCode;
+    }
+
+    /**
+     * This function returns the node reached from the given node by the given digit, 0 if there is none.
+     */
+    int next(int node, int digit) {
+        return children[node * RADIX + digit];
+    }
+
+    /**
+     * This function returns the "+code" string of the calling code ending at the given node, null for inner nodes.
+     */
+    String code(int node) {
+        return codes[node];
+    }
+}
@@ -0,0 +1,118 @@
+package com.lagnashree.customermanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Customer record in the layout of the customer data file. Records are bound once when the data file is loaded and
+ * never change afterwards, a bank detail patch produces a new record. Lists are copied into unmodifiable lists.
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Customer {
+    String firstName;
+    String lastName;
+    String personId;
+    String dob;
+    String streetName;
+    String houseNumber;
+    String city;
+    String country;
+    String countryCode;
+    // parsed once when the record is bound
+    List<PhoneNumber> phone;
+    Bank bank;
+    Education education;
+    // records that have never been patched are version 0
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    long version;
+    // epoch millis of the last patch, null if the record has never been patched
+    Long modifiedAt;
+
+    public static class CustomerBuilder {
+        public CustomerBuilder phone(List<PhoneNumber> phone) {
+            this.phone = unmodifiableCopy(phone);
+            return this;
+        }
+    }
+
+    @Value
+    @Builder(toBuilder = true)
+    @Jacksonized
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Bank {
+        String bankName;
+        String accountNumber;
+        String branch;
+        Card debitCard;
+        // a single object in the customer data file, a list once bank details have been patched
+        List<Card> creditCard;
+
+        public static class BankBuilder {
+            @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+            public BankBuilder creditCard(List<Card> creditCard) {
+                this.creditCard = unmodifiableCopy(creditCard);
+                return this;
+            }
+        }
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Card {
+        String number;
+        String paymentNetwork;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Education {
+        School school;
+        @JsonProperty("collage")
+        College college;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class School {
+        String name;
+        String address;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class College {
+        String name;
+        String address;
+        String degree;
+    }
+
+    private static <T> List<T> unmodifiableCopy(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+}
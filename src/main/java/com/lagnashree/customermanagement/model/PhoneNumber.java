@@ -0,0 +1,104 @@
+package com.lagnashree.customermanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Phone number of a customer, parsed once when the customer record is bound. An international number, written with a
+ * leading "+", is split into its country calling code, found in the ITU calling code trie, and its national number.
+ * The national number keeps only the digits, separators such as spaces, dashes, dots and brackets are dropped.
+ * In JSON a phone number is the string it was read from.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PhoneNumber {
+    // the number as written in the customer data file
+    @JsonValue
+    String raw;
+    boolean international;
+    // "+code" of an international number, null for national numbers and numbers with an unassigned calling code
+    String countryCode;
+    // the digits behind the calling code, all digits behind the "+" if the calling code is unassigned
+    String nationalNumber;
+
+    /**
+     * This function parses a phone number as written in the customer data file.
+     * @param raw phone number, international numbers start with "+"
+     * @return PhoneNumber of the raw number
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static PhoneNumber of(String raw) {
+        int length = raw.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(raw.charAt(start))) {
+            start++;
+        }
+        if (start == length || raw.charAt(start) != '+') {
+            return new PhoneNumber(raw, false, null, digits(raw, start));
+        }
+        CallingCodeTrie trie = CallingCodeTrie.ITU;
+        int node = 0;
+        String countryCode = null;
+        int position = start + 1;
+        while (position < length && countryCode == null) {
+            char c = raw.charAt(position++);
+            if (c >= '0' && c <= '9') {
+                node = trie.next(node, c - '0');
+                if (node == 0) {
+                    break;
+                }
+                countryCode = trie.code(node);
+            } else if (!isSeparator(c)) {
+                break;
+            }
+        }
+        return countryCode != null
+                ? new PhoneNumber(raw, true, countryCode, digits(raw, position))
+                : new PhoneNumber(raw, true, null, digits(raw, start + 1));
+    }
+
+    /**
+     * This function returns the number in its normalised form, "+", calling code and national number for an
+     * international number and the digits of a national number.
+     */
+    public String getNormalized() {
+        if (!international) {
+            return nationalNumber;
+        }
+        return countryCode != null ? countryCode + nationalNumber : "+" + nationalNumber;
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-' || c == '.' || c == '(' || c == ')' || c == '/';
+    }
+
+    /**
+     * This function returns the digits of raw from the given position on, without copying when there is nothing to drop.
+     */
+    private static String digits(String raw, int from) {
+        int length = raw.length();
+        int firstNonDigit = from;
+        while (firstNonDigit < length && raw.charAt(firstNonDigit) >= '0' && raw.charAt(firstNonDigit) <= '9') {
+            firstNonDigit++;
+        }
+        if (firstNonDigit == length) {
+            return from == 0 ? raw : raw.substring(from);
+        }
+        StringBuilder digits = new StringBuilder(length - from);
+        for (int i = from; i < length; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
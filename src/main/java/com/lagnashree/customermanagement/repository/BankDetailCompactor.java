@@ -0,0 +1,58 @@
+package com.lagnashree.customermanagement.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically compacts the bank detail write-ahead log into the customer data file in the background once the log
+ * has grown past the configured threshold.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BankDetailCompactor {
+    private final CustomerManagementRepository customerManagementRepository;
+    private final BankDetailWriteAheadLog writeAheadLog;
+
+    @Value("${customer.wal.compaction.threshold-bytes:67108864}")
+    private long thresholdBytes;
+
+    @Value("${customer.wal.compaction.interval-ms:60000}")
+    private long intervalMillis;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-wal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::compactIfNeeded, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (writeAheadLog.size() >= thresholdBytes) {
+                customerManagementRepository.compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Compacting the bank detail write-ahead log failed", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.lagnashree.customermanagement.model.Customer;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One entry of the bank detail write-ahead log: the bank details a customer was patched with and the version and
+ * modification time of the patched record.
+ */
+@Value
+@Builder
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BankDetailPatch {
+    String personId;
+    long version;
+    long modifiedAt;
+    Customer.Bank bank;
+}
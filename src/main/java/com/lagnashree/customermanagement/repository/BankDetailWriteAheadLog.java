@@ -0,0 +1,312 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of bank detail patches. Every entry is one JSON line. Appends from concurrent writers are queued
+ * and a single committer thread writes everything that is waiting as one batch followed by one fsync, so the cost of
+ * an fsync is shared by all patches of the batch. The log is split into numbered segments so that compaction can
+ * seal the current segment and delete it once its entries are part of the customer data file.
+ */
+@Component
+@Slf4j
+public class BankDetailWriteAheadLog {
+    private static final String SEGMENT_PREFIX = "bank-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final ObjectReader ENTRY_READER = CustomerDataLoader.MAPPER.readerFor(BankDetailPatch.class);
+    private static final ObjectWriter ENTRY_WRITER = CustomerDataLoader.MAPPER.writerFor(BankDetailPatch.class);
+
+    private final Path directory;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingAppend> pendingAppends = new LinkedBlockingQueue<>();
+    private final ReentrantLock segmentLock = new ReentrantLock();
+    private final Thread committerThread;
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private FileChannel channel;
+    private Path currentSegment;
+    private long sequence;
+    private long sealedBytes;
+    // set by close, appends are refused from then on instead of waiting for a committer that has stopped
+    private boolean closed;
+
+    public BankDetailWriteAheadLog(@Value("${customer.wal.directory:data/wal}") String directory,
+                                   @Value("${customer.wal.max-batch-size:1024}") int maxBatchSize) throws IOException {
+        this.directory = Paths.get(directory);
+        this.maxBatchSize = maxBatchSize;
+        Files.createDirectories(this.directory);
+        try (Stream<Path> segments = Files.list(this.directory)) {
+            segments.filter(BankDetailWriteAheadLog::isSegment)
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .forEach(sealedSegments::add);
+        }
+        for (Path segment : sealedSegments) {
+            sequence = Math.max(sequence, sequenceOf(segment));
+            sealedBytes += Files.size(segment);
+        }
+        // segments left empty by a previous run carry no entries
+        sealedSegments.removeIf(segment -> {
+            try {
+                return Files.size(segment) == 0 && Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                return false;
+            }
+        });
+        openNextSegment();
+        committerThread = new Thread(this::commitLoop, "bank-wal-committer");
+        committerThread.setDaemon(true);
+        committerThread.start();
+    }
+
+    /**
+     * This function appends an entry to the log and returns once the batch containing it has been fsynced.
+     * @param entry entry to append
+     * @throws IOException If the entry could not be written durably
+     */
+    public void append(BankDetailPatch entry) throws IOException {
+        append(List.of(entry));
+    }
+
+    /**
+     * This function appends several entries to the log as one write and returns once they have been fsynced.
+     * @param entries entries to append, in order
+     * @throws IOException If the entries could not be written durably or the log is closed
+     */
+    public void append(List<BankDetailPatch> entries) throws IOException {
+        StringBuilder lines = new StringBuilder(entries.size() * 256);
+        for (BankDetailPatch entry : entries) {
+            lines.append(ENTRY_WRITER.writeValueAsString(entry)).append('\n');
+        }
+        PendingAppend pending = new PendingAppend(lines.toString().getBytes(StandardCharsets.UTF_8));
+        segmentLock.lock();
+        try {
+            if (closed) {
+                throw new IOException("write-ahead log is closed");
+            }
+            pendingAppends.add(pending);
+        } finally {
+            segmentLock.unlock();
+        }
+        try {
+            pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the write-ahead log");
+        } catch (ExecutionException e) {
+            throw new IOException("Error writing bank detail write-ahead log", e.getCause());
+        }
+    }
+
+    /**
+     * This function streams all entries of all segments to the consumer in the order they were appended.
+     * A torn last line, left behind by a crash in the middle of a write, is skipped.
+     * @param consumer receives every entry of the log
+     * @throws IOException If a segment can not be read
+     */
+    public void replay(Consumer<BankDetailPatch> consumer) throws IOException {
+        List<Path> segments;
+        segmentLock.lock();
+        try {
+            segments = new ArrayList<>(sealedSegments);
+            segments.add(currentSegment);
+        } finally {
+            segmentLock.unlock();
+        }
+        for (Path segment : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    BankDetailPatch entry;
+                    try {
+                        entry = ENTRY_READER.readValue(line);
+                    } catch (IOException e) {
+                        log.warn("Skipping unreadable write-ahead log entry in {}", segment);
+                        continue;
+                    }
+                    if (entry.getPersonId() != null) {
+                        consumer.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This function seals the current segment and starts a new one. Entries appended afterwards go to the new segment.
+     * @return all sealed segments, oldest first
+     * @throws IOException If the new segment can not be created
+     */
+    public List<Path> rotate() throws IOException {
+        segmentLock.lock();
+        try {
+            channel.close();
+            sealedBytes += Files.size(currentSegment);
+            sealedSegments.add(currentSegment);
+            openNextSegment();
+            return new ArrayList<>(sealedSegments);
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * This function deletes sealed segments whose entries have been compacted into the customer data file.
+     * @param segments segments returned by rotate
+     * @throws IOException If a segment can not be deleted
+     */
+    public void deleteSegments(List<Path> segments) throws IOException {
+        segmentLock.lock();
+        try {
+            for (Path segment : segments) {
+                if (sealedSegments.remove(segment)) {
+                    sealedBytes -= Files.size(segment);
+                    Files.delete(segment);
+                }
+            }
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the number of bytes held by all segments of the log.
+     */
+    public long size() throws IOException {
+        segmentLock.lock();
+        try {
+            return sealedBytes + channel.size();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    /**
+     * This function stops the committer and closes the current segment. Appends still queued fail with an
+     * IOException, later appends are refused.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        segmentLock.lock();
+        try {
+            closed = true;
+        } finally {
+            segmentLock.unlock();
+        }
+        committerThread.interrupt();
+        try {
+            // the committer fails every queued append before it exits, so none is left waiting
+            committerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while closing the write-ahead log");
+        }
+        segmentLock.lock();
+        try {
+            channel.close();
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                batch.add(pendingAppends.take());
+                pendingAppends.drainTo(batch, maxBatchSize - 1);
+                Throwable failure = null;
+                try {
+                    writeBatch(batch);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Writing {} bank detail patches to the write-ahead log failed", batch.size(), e);
+                    failure = e;
+                }
+                for (PendingAppend pending : batch) {
+                    if (failure == null) {
+                        pending.future.complete(null);
+                    } else {
+                        pending.future.completeExceptionally(failure);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            IOException closed = new IOException("write-ahead log is closed");
+            batch.forEach(pending -> pending.future.completeExceptionally(closed));
+            pendingAppends.forEach(pending -> pending.future.completeExceptionally(closed));
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) throws IOException {
+        int length = 0;
+        for (PendingAppend pending : batch) {
+            length += pending.bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (PendingAppend pending : batch) {
+            buffer.put(pending.bytes);
+        }
+        buffer.flip();
+        segmentLock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } finally {
+            segmentLock.unlock();
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        sequence++;
+        currentSegment = directory.resolve(SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class PendingAppend {
+        private final byte[] bytes;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingAppend(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
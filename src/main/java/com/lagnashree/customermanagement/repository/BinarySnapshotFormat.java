@@ -0,0 +1,635 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import com.lagnashree.customermanagement.model.PhoneNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Layout of the binary customer snapshot file. All numbers are big-endian.
+ * <pre>
+ * header  : magic (int) | version (int) | recordCount (int) | slotCount (int) | indexOffset (long) | reserved (long)
+ * records : personId (varint length + UTF-8) | value, repeated recordCount times
+ * index   : slotCount slots of hash (int) | record offset (long), open addressing with linear probing, offset 0 = empty
+ * value   : type (byte) followed by
+ *           OBJECT field count (varint) and per field the name (varint length + UTF-8) and a value
+ *           ARRAY  item count (varint) and the item values
+ *           STRING varint length + UTF-8, LONG 8 bytes, DOUBLE 8 bytes, TRUE/FALSE/NULL nothing
+ * </pre>
+ * A record is a Customer in the object layout of the customer data file. Records are written from and read straight
+ * into Customer objects, field by field.
+ */
+final class BinarySnapshotFormat {
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 12;
+
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_OBJECT = 1;
+    static final byte TYPE_ARRAY = 2;
+    static final byte TYPE_STRING = 3;
+    static final byte TYPE_LONG = 4;
+    static final byte TYPE_DOUBLE = 5;
+    static final byte TYPE_TRUE = 6;
+    static final byte TYPE_FALSE = 7;
+
+    // top-level fields of the record that every view reads
+    private static final Map<CustomerView, Set<RecordField>> VIEW_FIELDS = viewFields();
+
+    private BinarySnapshotFormat() {
+    }
+
+    /**
+     * This function checks whether the given file starts with the binary snapshot magic number.
+     */
+    static boolean isBinarySnapshot(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    static int hash(String personId) {
+        int h = personId.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * This function returns the number of index slots for the given record count, keeping the load factor below 0.5.
+     */
+    static int slotCount(int recordCount) {
+        return Integer.highestOneBit(Math.max(recordCount, 1)) << 2;
+    }
+
+    static void encodeRecord(Customer customer, ByteArrayOutputStream out) {
+        writeString(customer.getPersonId(), out);
+        writeCustomer(customer, out);
+    }
+
+    private static void writeCustomer(Customer customer, ByteArrayOutputStream out) {
+        out.write(TYPE_OBJECT);
+        writeVarInt(countPresent(customer.getFirstName(), customer.getLastName(), customer.getPersonId(),
+                customer.getDob(), customer.getStreetName(), customer.getHouseNumber(), customer.getCity(),
+                customer.getCountry(), customer.getCountryCode(), customer.getPhone(), customer.getBank(),
+                customer.getEducation(), customer.getModifiedAt()) + (customer.getVersion() != 0 ? 1 : 0), out);
+        writeField("firstName", customer.getFirstName(), out);
+        writeField("lastName", customer.getLastName(), out);
+        writeField("personId", customer.getPersonId(), out);
+        writeField("dob", customer.getDob(), out);
+        writeField("streetName", customer.getStreetName(), out);
+        writeField("houseNumber", customer.getHouseNumber(), out);
+        writeField("city", customer.getCity(), out);
+        writeField("country", customer.getCountry(), out);
+        writeField("countryCode", customer.getCountryCode(), out);
+        if (customer.getPhone() != null) {
+            writeString("phone", out);
+            out.write(TYPE_ARRAY);
+            writeVarInt(customer.getPhone().size(), out);
+            for (PhoneNumber phone : customer.getPhone()) {
+                writeText(phone == null ? null : phone.getRaw(), out);
+            }
+        }
+        if (customer.getBank() != null) {
+            writeString("bank", out);
+            writeBank(customer.getBank(), out);
+        }
+        if (customer.getEducation() != null) {
+            writeString("education", out);
+            writeEducation(customer.getEducation(), out);
+        }
+        if (customer.getVersion() != 0) {
+            writeField("version", customer.getVersion(), out);
+        }
+        if (customer.getModifiedAt() != null) {
+            writeField("modifiedAt", customer.getModifiedAt(), out);
+        }
+    }
+
+    private static void writeBank(Customer.Bank bank, ByteArrayOutputStream out) {
+        out.write(TYPE_OBJECT);
+        writeVarInt(countPresent(bank.getBankName(), bank.getAccountNumber(), bank.getBranch(), bank.getDebitCard(),
+                bank.getCreditCard()), out);
+        writeField("bankName", bank.getBankName(), out);
+        writeField("accountNumber", bank.getAccountNumber(), out);
+        writeField("branch", bank.getBranch(), out);
+        if (bank.getDebitCard() != null) {
+            writeString("debitCard", out);
+            writeCard(bank.getDebitCard(), out);
+        }
+        if (bank.getCreditCard() != null) {
+            writeString("creditCard", out);
+            out.write(TYPE_ARRAY);
+            writeVarInt(bank.getCreditCard().size(), out);
+            for (Customer.Card card : bank.getCreditCard()) {
+                writeCard(card, out);
+            }
+        }
+    }
+
+    private static void writeCard(Customer.Card card, ByteArrayOutputStream out) {
+        if (card == null) {
+            out.write(TYPE_NULL);
+            return;
+        }
+        out.write(TYPE_OBJECT);
+        writeVarInt(countPresent(card.getNumber(), card.getPaymentNetwork()), out);
+        writeField("number", card.getNumber(), out);
+        writeField("paymentNetwork", card.getPaymentNetwork(), out);
+    }
+
+    private static void writeEducation(Customer.Education education, ByteArrayOutputStream out) {
+        Customer.School school = education.getSchool();
+        Customer.College college = education.getCollege();
+        out.write(TYPE_OBJECT);
+        writeVarInt(countPresent(school, college), out);
+        if (school != null) {
+            writeString("school", out);
+            out.write(TYPE_OBJECT);
+            writeVarInt(countPresent(school.getName(), school.getAddress()), out);
+            writeField("name", school.getName(), out);
+            writeField("address", school.getAddress(), out);
+        }
+        if (college != null) {
+            writeString("collage", out);
+            out.write(TYPE_OBJECT);
+            writeVarInt(countPresent(college.getName(), college.getAddress(), college.getDegree()), out);
+            writeField("name", college.getName(), out);
+            writeField("address", college.getAddress(), out);
+            writeField("degree", college.getDegree(), out);
+        }
+    }
+
+    private static int countPresent(Object... values) {
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void writeField(String name, String value, ByteArrayOutputStream out) {
+        if (value != null) {
+            writeString(name, out);
+            writeText(value, out);
+        }
+    }
+
+    private static void writeField(String name, long value, ByteArrayOutputStream out) {
+        writeString(name, out);
+        out.write(TYPE_LONG);
+        writeLong(value, out);
+    }
+
+    private static void writeText(String value, ByteArrayOutputStream out) {
+        if (value == null) {
+            out.write(TYPE_NULL);
+        } else {
+            out.write(TYPE_STRING);
+            writeString(value, out);
+        }
+    }
+
+    private static void writeString(String value, ByteArrayOutputStream out) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarInt(int value, ByteArrayOutputStream out) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeLong(long value, ByteArrayOutputStream out) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * This function compares the personId stored at the current buffer position with the given UTF-8 bytes and
+     * leaves the buffer positioned behind the stored personId.
+     */
+    static boolean personIdMatches(ByteBuffer buffer, byte[] personId) {
+        int length = readVarInt(buffer);
+        if (length != personId.length) {
+            buffer.position(buffer.position() + length);
+            return false;
+        }
+        boolean matches = true;
+        for (byte b : personId) {
+            matches &= buffer.get() == b;
+        }
+        return matches;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    /**
+     * This function reads the record value at the current buffer position into a Customer, keeping only the
+     * top-level fields of the given view. Skipped fields are stepped over without decoding their strings.
+     */
+    static Customer readRecord(ByteBuffer buffer, CustomerView view) {
+        Set<RecordField> wanted = VIEW_FIELDS.get(view);
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            throw new IllegalStateException("corrupt snapshot, record is not an object");
+        }
+        Customer.CustomerBuilder customer = Customer.builder();
+        for (int i = 0; i < fields; i++) {
+            int length = readVarInt(buffer);
+            int nameStart = buffer.position();
+            buffer.position(nameStart + length);
+            RecordField field = RecordField.of(buffer, nameStart, length);
+            if (field == null || !wanted.contains(field)) {
+                skipValue(buffer);
+                continue;
+            }
+            switch (field) {
+                case FIRST_NAME:
+                    customer.firstName(readText(buffer));
+                    break;
+                case LAST_NAME:
+                    customer.lastName(readText(buffer));
+                    break;
+                case PERSON_ID:
+                    customer.personId(readText(buffer));
+                    break;
+                case DOB:
+                    customer.dob(readText(buffer));
+                    break;
+                case STREET_NAME:
+                    customer.streetName(readText(buffer));
+                    break;
+                case HOUSE_NUMBER:
+                    customer.houseNumber(readText(buffer));
+                    break;
+                case CITY:
+                    customer.city(readText(buffer));
+                    break;
+                case COUNTRY:
+                    customer.country(readText(buffer));
+                    break;
+                case COUNTRY_CODE:
+                    customer.countryCode(readText(buffer));
+                    break;
+                case PHONE:
+                    customer.phone(readPhoneNumbers(buffer));
+                    break;
+                case BANK:
+                    customer.bank(readBank(buffer));
+                    break;
+                case EDUCATION:
+                    customer.education(readEducation(buffer));
+                    break;
+                case VERSION: {
+                    Long version = readNumber(buffer);
+                    customer.version(version == null ? 0L : version);
+                    break;
+                }
+                case MODIFIED_AT:
+                    customer.modifiedAt(readNumber(buffer));
+                    break;
+            }
+        }
+        return customer.build();
+    }
+
+    private static Customer.Bank readBank(ByteBuffer buffer) {
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            return null;
+        }
+        Customer.Bank.BankBuilder bank = Customer.Bank.builder();
+        for (int i = 0; i < fields; i++) {
+            switch (readString(buffer)) {
+                case "bankName":
+                    bank.bankName(readText(buffer));
+                    break;
+                case "accountNumber":
+                    bank.accountNumber(readText(buffer));
+                    break;
+                case "branch":
+                    bank.branch(readText(buffer));
+                    break;
+                case "debitCard":
+                    bank.debitCard(readCard(buffer));
+                    break;
+                case "creditCard":
+                    bank.creditCard(readCards(buffer));
+                    break;
+                default:
+                    skipValue(buffer);
+            }
+        }
+        return bank.build();
+    }
+
+    /**
+     * This function reads the credit cards of a bank, stored as a single object by snapshots converted from the
+     * customer data file and as an array once bank details have been patched.
+     */
+    private static List<Customer.Card> readCards(ByteBuffer buffer) {
+        byte type = buffer.get(buffer.position());
+        if (type == TYPE_OBJECT) {
+            return List.of(readCard(buffer));
+        }
+        if (type != TYPE_ARRAY) {
+            skipValue(buffer);
+            return null;
+        }
+        buffer.get();
+        int items = readVarInt(buffer);
+        List<Customer.Card> cards = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            cards.add(readCard(buffer));
+        }
+        return cards;
+    }
+
+    private static Customer.Card readCard(ByteBuffer buffer) {
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            return null;
+        }
+        Customer.Card.CardBuilder card = Customer.Card.builder();
+        for (int i = 0; i < fields; i++) {
+            switch (readString(buffer)) {
+                case "number":
+                    card.number(readText(buffer));
+                    break;
+                case "paymentNetwork":
+                    card.paymentNetwork(readText(buffer));
+                    break;
+                default:
+                    skipValue(buffer);
+            }
+        }
+        return card.build();
+    }
+
+    private static Customer.Education readEducation(ByteBuffer buffer) {
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            return null;
+        }
+        Customer.Education.EducationBuilder education = Customer.Education.builder();
+        for (int i = 0; i < fields; i++) {
+            switch (readString(buffer)) {
+                case "school":
+                    education.school(readSchool(buffer));
+                    break;
+                case "collage":
+                    education.college(readCollege(buffer));
+                    break;
+                default:
+                    skipValue(buffer);
+            }
+        }
+        return education.build();
+    }
+
+    private static Customer.School readSchool(ByteBuffer buffer) {
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            return null;
+        }
+        Customer.School.SchoolBuilder school = Customer.School.builder();
+        for (int i = 0; i < fields; i++) {
+            switch (readString(buffer)) {
+                case "name":
+                    school.name(readText(buffer));
+                    break;
+                case "address":
+                    school.address(readText(buffer));
+                    break;
+                default:
+                    skipValue(buffer);
+            }
+        }
+        return school.build();
+    }
+
+    private static Customer.College readCollege(ByteBuffer buffer) {
+        int fields = readObjectHeader(buffer);
+        if (fields < 0) {
+            return null;
+        }
+        Customer.College.CollegeBuilder college = Customer.College.builder();
+        for (int i = 0; i < fields; i++) {
+            switch (readString(buffer)) {
+                case "name":
+                    college.name(readText(buffer));
+                    break;
+                case "address":
+                    college.address(readText(buffer));
+                    break;
+                case "degree":
+                    college.degree(readText(buffer));
+                    break;
+                default:
+                    skipValue(buffer);
+            }
+        }
+        return college.build();
+    }
+
+    /**
+     * This function reads the type of the value at the current buffer position and, for an object, its field count.
+     * Any other value is skipped.
+     * @return the number of fields of the object, -1 if the value is not an object
+     */
+    private static int readObjectHeader(ByteBuffer buffer) {
+        byte type = buffer.get();
+        if (type == TYPE_OBJECT) {
+            return readVarInt(buffer);
+        }
+        skipValue(buffer, type);
+        return -1;
+    }
+
+    /**
+     * This function reads a string value, numbers and booleans are converted to their text and anything else is null.
+     */
+    private static String readText(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case TYPE_STRING:
+                return readString(buffer);
+            case TYPE_LONG:
+                return Long.toString(buffer.getLong());
+            case TYPE_DOUBLE:
+                return Double.toString(Double.longBitsToDouble(buffer.getLong()));
+            case TYPE_TRUE:
+                return "true";
+            case TYPE_FALSE:
+                return "false";
+            default:
+                skipValue(buffer, type);
+                return null;
+        }
+    }
+
+    private static List<PhoneNumber> readPhoneNumbers(ByteBuffer buffer) {
+        byte type = buffer.get();
+        if (type != TYPE_ARRAY) {
+            skipValue(buffer, type);
+            return null;
+        }
+        int items = readVarInt(buffer);
+        List<PhoneNumber> phoneNumbers = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            String phone = readText(buffer);
+            phoneNumbers.add(phone == null ? null : PhoneNumber.of(phone));
+        }
+        return phoneNumbers;
+    }
+
+    private static Long readNumber(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case TYPE_LONG:
+                return buffer.getLong();
+            case TYPE_DOUBLE:
+                return (long) Double.longBitsToDouble(buffer.getLong());
+            default:
+                skipValue(buffer, type);
+                return null;
+        }
+    }
+
+    private static boolean equalBytes(ByteBuffer buffer, int start, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void skipValue(ByteBuffer buffer) {
+        skipValue(buffer, buffer.get());
+    }
+
+    private static void skipValue(ByteBuffer buffer, byte type) {
+        switch (type) {
+            case TYPE_OBJECT: {
+                int fields = readVarInt(buffer);
+                for (int i = 0; i < fields; i++) {
+                    int length = readVarInt(buffer);
+                    buffer.position(buffer.position() + length);
+                    skipValue(buffer);
+                }
+                break;
+            }
+            case TYPE_ARRAY: {
+                int items = readVarInt(buffer);
+                for (int i = 0; i < items; i++) {
+                    skipValue(buffer);
+                }
+                break;
+            }
+            case TYPE_STRING: {
+                int length = readVarInt(buffer);
+                buffer.position(buffer.position() + length);
+                break;
+            }
+            case TYPE_LONG:
+            case TYPE_DOUBLE:
+                buffer.position(buffer.position() + 8);
+                break;
+            case TYPE_NULL:
+            case TYPE_TRUE:
+            case TYPE_FALSE:
+                break;
+            default:
+                throw new IllegalStateException("corrupt snapshot, unknown value type " + type);
+        }
+    }
+
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static Map<CustomerView, Set<RecordField>> viewFields() {
+        Map<CustomerView, Set<RecordField>> viewFields = new EnumMap<>(CustomerView.class);
+        for (CustomerView view : CustomerView.values()) {
+            Set<RecordField> fields = EnumSet.noneOf(RecordField.class);
+            for (RecordField field : RecordField.values()) {
+                if (view.isWholeRecord() || view.getFields().contains(field.name)) {
+                    fields.add(field);
+                }
+            }
+            viewFields.put(view, fields);
+        }
+        return viewFields;
+    }
+
+    /**
+     * Top-level fields of a record, matched against the stored field name without decoding it.
+     */
+    private enum RecordField {
+        FIRST_NAME("firstName"), LAST_NAME("lastName"), PERSON_ID("personId"), DOB("dob"), STREET_NAME("streetName"),
+        HOUSE_NUMBER("houseNumber"), CITY("city"), COUNTRY("country"), COUNTRY_CODE("countryCode"), PHONE("phone"),
+        BANK("bank"), EDUCATION("education"), VERSION("version"), MODIFIED_AT("modifiedAt");
+
+        private static final RecordField[] FIELDS = values();
+        private final String name;
+        private final byte[] nameBytes;
+
+        RecordField(String name) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static RecordField of(ByteBuffer buffer, int start, int length) {
+            for (RecordField field : FIELDS) {
+                if (equalBytes(buffer, start, length, field.nameBytes)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for the customer data file. The file may contain a single customer object, a JSON array of
+ * customers or newline-delimited JSON (one customer per line). Every record is bound straight into a Customer, only
+ * one record is held in memory at a time. Fields the Customer does not know are ignored.
+ */
+public final class CustomerDataLoader {
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+    private static final ObjectReader CUSTOMER_READER = MAPPER.readerFor(Customer.class);
+    private static final ObjectWriter CUSTOMER_WRITER = MAPPER.writerFor(Customer.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CustomerDataLoader() {
+    }
+
+    /**
+     * This function streams the customer records of the given file to the consumer.
+     * @param file customer data file in JSON object, JSON array or NDJSON layout
+     * @param consumer receives every customer record that has a personId
+     * @return LoadStatistics of the load
+     * @throws IOException If the file can not be read or is not valid JSON
+     */
+    public static LoadStatistics load(Path file, Consumer<Customer> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+            return load(in, consumer);
+        }
+    }
+
+    /**
+     * This function streams the customer records of the given input to the consumer.
+     * @param in customer data in JSON object, JSON array or NDJSON layout
+     * @param consumer receives every customer record that has a personId
+     * @return LoadStatistics of the load
+     * @throws IOException If the input can not be read or is not valid JSON
+     */
+    public static LoadStatistics load(InputStream in, Consumer<Customer> consumer) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+        long skipped = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY) {
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.START_OBJECT) {
+                            throw new JsonParseException(parser, "customer record must be a JSON object");
+                        }
+                        if (accept(CUSTOMER_READER.readValue(parser), consumer)) {
+                            records++;
+                        } else {
+                            skipped++;
+                        }
+                    }
+                } else if (token == JsonToken.START_OBJECT) {
+                    if (accept(CUSTOMER_READER.readValue(parser), consumer)) {
+                        records++;
+                    } else {
+                        skipped++;
+                    }
+                } else {
+                    throw new JsonParseException(parser, "customer record must be a JSON object");
+                }
+            }
+        }
+        return LoadStatistics.builder()
+                .records(records)
+                .skippedRecords(skipped)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    private static boolean accept(Customer customer, Consumer<Customer> consumer) {
+        if (customer.getPersonId() == null) {
+            return false;
+        }
+        consumer.accept(customer);
+        return true;
+    }
+
+    /**
+     * This function writes the customer as one line of newline-delimited JSON, in the layout of the customer data file.
+     */
+    static void writeLine(Customer customer, Writer writer) throws IOException {
+        writer.write(CUSTOMER_WRITER.writeValueAsString(customer));
+        writer.write('\n');
+    }
+}
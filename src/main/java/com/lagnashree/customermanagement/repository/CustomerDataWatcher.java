@@ -0,0 +1,97 @@
+package com.lagnashree.customermanagement.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the customer data file and reloads the repository in the background when the file is replaced or modified.
+ * Events are debounced so a file that is still being written is only parsed once the writer has gone quiet.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CustomerDataWatcher {
+    private final CustomerManagementRepository customerManagementRepository;
+
+    @Value("${customer.data.watch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${customer.data.watch.debounce-ms:500}")
+    private long debounceMillis;
+
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dataFile = customerManagementRepository.getDataFile().toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        dataFile.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcherThread = new Thread(() -> watch(dataFile.getFileName()), "customer-data-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("Watching {} for changes", dataFile);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch(Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = pollEvents(key, fileName);
+                // keep draining events until the file has been quiet for the debounce interval
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= pollEvents(key, fileName);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Stopped watching customer data file");
+        }
+    }
+
+    private static boolean pollEvents(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            customerManagementRepository.reload();
+        } catch (IOException | RuntimeException e) {
+            log.error("Reloading customer data failed, keeping the previous snapshot", e);
+        }
+    }
+}
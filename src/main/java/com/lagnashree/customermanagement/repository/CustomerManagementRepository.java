@@ -1,28 +1,534 @@
 package com.lagnashree.customermanagement.repository;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import jakarta.annotation.PostConstruct;
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
+import com.lagnashree.customermanagement.model.Customer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Repository;
 
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 @Repository
+@Slf4j
+@RequiredArgsConstructor
 public class CustomerManagementRepository {
+    private static final int WRITE_LOCK_STRIPES = 1024;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    // sample customers shipped with the application, copied to a missing data file
+    private static final String SEED_DATA_FILE = "Person.json";
+
+    private final BankDetailWriteAheadLog writeAheadLog;
+
+    private final AtomicReference<CustomerSnapshot> snapshot = new AtomicReference<>();
+    // secondary indexes of the current snapshot, including the patched bank details
+    private final AtomicReference<CustomerSearchIndex> searchIndex = new AtomicReference<>();
+    // phone numbers of the current snapshot, patches only replace bank details so they never change it
+    private final AtomicReference<PhoneNumberIndex> phoneNumberIndex = new AtomicReference<>();
+    // rules out unknown personIds before the snapshot is probed
+    private final AtomicReference<PersonIdFilter> personIdFilter = new AtomicReference<>();
+    // incremented whenever a new snapshot is published
+    private final AtomicLong generation = new AtomicLong();
+    // latest bank detail patch of every customer patched since the data file was last compacted. Only the bank details
+    // are kept and applied on top of the record of the current snapshot, so a reloaded data file shows its own values
+    // of every other field
+    private final Map<String, BankDetailPatch> bankDetailPatches = new ConcurrentHashMap<>();
+    private final ReentrantLock[] writeLocks = createWriteLocks();
+    // serialises reloads and compactions, a lock rather than a monitor so that file I/O never pins a virtual thread
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    // compaction rewrites the data file, so it lives in a runtime directory and never under src
+    @Value("${customer.data.file:data/Person.json}")
+    private String filePath;
+
+    // 0 = one segment and one load thread per available processor
+    @Value("${customer.data.partitions:0}")
+    private int partitions;
+
+    @Value("${customer.data.load-threads:0}")
+    private int loadThreads;
+
+    // 0 = DEFAULT_FALSE_POSITIVE_RATE
+    @Value("${customer.data.person-id-filter.false-positive-rate:0}")
+    private double personIdFilterFalsePositiveRate;
+
+    /**
+     * This function streams the customer data file once at startup and indexes the customers by personId, then
+     * re-applies the bank detail patches of the write-ahead log that are not yet part of the data file.
+     * The file may hold a single customer, a JSON array of customers, newline-delimited JSON or a binary snapshot.
+     * A missing data file is created from the sample customers on the classpath.
+     * @throws IOException If there is IOEception while reading or parsing the JSON file
+     */
+    @PostConstruct
+    public void loadCustomerData() throws IOException {
+        seedDataFile();
+        reload();
+        writeAheadLog.replay(entry -> {
+            Customer customer = findByPersonId(entry.getPersonId(), CustomerView.SEARCH);
+            if (customer != null) {
+                putPatch(customer.getBank(), entry);
+            }
+        });
+        log.info("Re-applied bank detail patches for {} customers from the write-ahead log", bankDetailPatches.size());
+    }
+
+    /**
+     * This function parses the customer data file into a new snapshot, indexes it and publishes it with a single
+     * reference swap. Requests already working on the previous snapshot keep using it, if loading fails the previous
+     * snapshot stays.
+     * <p>
+     * The search index, the phone number index and the personId filter are built in one pass over the snapshot that
+     * decodes the fields of CustomerView.INDEXES only. This pass reads every record, so even a memory-mapped snapshot
+     * takes time linear in the number of customers to load.
+     * @throws IOException If there is IOEception while reading or parsing the JSON file
+     */
+    public void reload() throws IOException {
+        maintenanceLock.lock();
+        try {
+            CustomerSnapshot loaded;
+            try {
+                loaded = CustomerSnapshot.open(getDataFile(), orProcessors(partitions), orProcessors(loadThreads));
+            } catch (IOException e) {
+                throw new IOException("Error reading customer data file", e);
+            }
+            long indexStart = System.nanoTime();
+            Map<String, BankDetailPatch> indexedPatches = new HashMap<>(bankDetailPatches);
+            CustomerSearchIndex.Builder indexBuilder = CustomerSearchIndex.builder(loaded, indexedPatches);
+            PhoneNumberIndex.Builder phoneNumberBuilder = PhoneNumberIndex.builder(loaded);
+            PersonIdFilter.Builder filterBuilder = PersonIdFilter.builder(loaded, personIdFilterFalsePositiveRate > 0
+                    ? personIdFilterFalsePositiveRate : DEFAULT_FALSE_POSITIVE_RATE);
+            loaded.forEach(CustomerView.INDEXES, indexBuilder.andThen(phoneNumberBuilder).andThen(filterBuilder));
+            CustomerSearchIndex index = indexBuilder.build();
+            PhoneNumberIndex phoneNumbers = phoneNumberBuilder.build();
+            PersonIdFilter filter = filterBuilder.build();
+            // no patch can run between publishing the index and catching it up with the patches applied while it was
+            // built, those went to the previous index
+            lockAllStripes();
+            try {
+                personIdFilter.set(filter);
+                snapshot.set(loaded);
+                searchIndex.set(index);
+                phoneNumberIndex.set(phoneNumbers);
+                bankDetailPatches.forEach((personId, patch) -> {
+                    BankDetailPatch indexed = indexedPatches.get(personId);
+                    if (indexed != patch) {
+                        index.reindex(personId, indexed != null ? indexed.getBank() : bankOf(loaded, personId), patch.getBank());
+                    }
+                });
+            } finally {
+                unlockAllStripes();
+            }
+            generation.incrementAndGet();
+            LoadStatistics statistics = loaded.getLoadStatistics();
+            log.info("Loaded {} customer records from {} in {} ms ({} records/sec, {} skipped without personId)",
+                    statistics.getRecords(), filePath, statistics.getElapsedMillis(),
+                    statistics.getRecordsPerSecond(), statistics.getSkippedRecords());
+            for (LoadStatistics.Segment segment : statistics.getSegments()) {
+                log.info("Customer segment {} indexed {} records in {} ms",
+                        segment.getIndex(), segment.getRecords(), segment.getElapsedMillis());
+            }
+            log.info("Indexed {} customers and {} phone numbers for search in {} ms", loaded.size(), phoneNumbers.size(),
+                    (System.nanoTime() - indexStart) / 1_000_000);
+            log.info("Built personId filter of {} KiB with {} hashes", filter.getBitCount() / 8192, filter.getHashCount());
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the customer with the given personId, including bank detail patches.
+     * @param personId personId of the customer
+     * @return Customer record of the customer, or null if the personId is unknown.
+     */
+    public Customer findByPersonId(String personId) {
+        return findByPersonId(personId, CustomerView.CUSTOMER);
+    }
+
+    /**
+     * This function returns the customer with the given personId with at least the fields the given view needs,
+     * including bank detail patches.
+     * @param personId personId of the customer
+     * @param view view the record is read for
+     * @return Customer record of the customer, or null if the personId is unknown.
+     */
+    public Customer findByPersonId(String personId, CustomerView view) {
+        CustomerSnapshot current = snapshot.get();
+        Customer customer = mightContain(current, personId) ? current.findByPersonId(personId, view) : null;
+        return customer == null ? null : withPatch(customer, bankDetailPatches.get(personId));
+    }
+
+    /**
+     * This function returns the version of the customer with the given personId, decoding nothing else of the record.
+     * @param personId personId of the customer
+     * @return version of the customer, or -1 if the personId is unknown.
+     */
+    public long findVersion(String personId) {
+        Customer customer = findByPersonId(personId, CustomerView.REVISION);
+        return customer == null ? -1 : customer.getVersion();
+    }
+
+    /**
+     * This function returns the version, ETag and modification time of the customer with the given personId. A record
+     * counts as modified when it was last patched or, if later, when the snapshot it is read with was loaded.
+     * @param personId personId of the customer
+     * @return CustomerRevision of the customer, or null if the personId is unknown.
+     */
+    public CustomerRevision findRevision(String personId) {
+        CustomerSnapshot current = snapshot.get();
+        Customer customer = mightContain(current, personId) ? current.findByPersonId(personId, CustomerView.REVISION) : null;
+        if (customer == null) {
+            return null;
+        }
+        return revisionOf(withPatch(customer, bankDetailPatches.get(personId)), current);
+    }
+
+    /**
+     * This function passes every customer, including bank detail patches, to the consumer one record at a time.
+     * The customers come from the snapshot that is current when the call starts.
+     * @param consumer receives every customer record
+     */
+    public void forEachCustomer(Consumer<Customer> consumer) {
+        snapshot.get().forEach(customer -> consumer.accept(withPatch(customer, bankDetailPatches.get(customer.getPersonId()))));
+    }
+
+    /**
+     * This function finds customers by the values of indexed fields, answered from the search index without reading
+     * any customer record.
+     * @param criteria values to look for by field, a customer matches a field if it holds any of its values
+     * @param matchAll true if a customer has to match every field, false if matching one field is enough
+     * @param offset number of matching customers to skip
+     * @param limit maximum number of personIds to return
+     * @return SearchResult with the number of matches and the personIds of the requested page
+     */
+    public SearchResult search(Map<CustomerSearchIndex.Field, List<String>> criteria, boolean matchAll, int offset, int limit) {
+        return searchIndex.get().search(criteria, matchAll, offset, limit);
+    }
+
+    /**
+     * This function finds the customers holding a phone number, answered from the phone number index without reading
+     * any customer record.
+     * @param phoneNumber phone number, or prefix of a phone number, in any notation
+     * @param prefix true to match every number starting with phoneNumber, false to match it exactly
+     * @param offset number of matches to skip
+     * @param limit maximum number of matches to return
+     * @return PhoneNumberSearchResult with the number of matches and the normalised numbers and personIds of the page
+     */
+    public PhoneNumberSearchResult searchPhoneNumber(String phoneNumber, boolean prefix, int offset, int limit) {
+        return phoneNumberIndex.get().search(phoneNumber, prefix, offset, limit);
+    }
+
+    /**
+     * This function durably replaces the bank details of a customer and increments the version of the record.
+     * The patch is visible to readers once it has been written and fsynced to the write-ahead log. Patches of the
+     * same customer are applied one at a time on a striped lock, so patches of different customers proceed in parallel.
+     * The expected ETags are compared with the whole ETag of findRevision, so an ETag read before the data file was
+     * reloaded no longer matches.
+     * @param personId personId of the customer
+     * @param bank new bank details of the customer
+     * @param expectedETags ETags of the revisions the caller based the patch on, one of them has to be the current
+     *                      one; null to patch whatever revision is current
+     * @return PatchedCustomer with the updated customer and its new revision, or null if the personId is unknown.
+     * @throws PreconditionFailedException If the record has been changed since the expected revision
+     * @throws IOException If the patch could not be written to the write-ahead log
+     */
+    public PatchedCustomer saveBankDetails(String personId, Customer.Bank bank, Collection<String> expectedETags) throws IOException {
+        ReentrantLock lock = writeLock(personId);
+        lock.lock();
+        try {
+            // reload publishes a snapshot with every write lock held, so it can not change before this patch is applied
+            CustomerSnapshot current = snapshot.get();
+            Customer customer = findByPersonId(personId);
+            if (customer == null) {
+                return null;
+            }
+            long version = customer.getVersion();
+            String eTag = revisionOf(customer, current).getETag();
+            if (expectedETags != null && !expectedETags.contains(eTag)) {
+                throw new PreconditionFailedException("customer has been modified, current ETag is " + eTag);
+            }
+            BankDetailPatch entry = BankDetailPatch.builder()
+                    .personId(personId)
+                    .version(version + 1)
+                    .modifiedAt(System.currentTimeMillis())
+                    .bank(bank).build();
+            writeAheadLog.append(entry);
+            putPatch(customer.getBank(), entry);
+            Customer updated = withPatch(customer, entry);
+            return new PatchedCustomer(updated, revisionOf(updated, current));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * This function durably replaces the bank details of several customers with a single write-ahead log append.
+     * The striped locks of all customers are held, in stripe order, until the batch is fsynced. A customer that
+     * occurs several times gets every patch applied in order.
+     * @param personIds personIds of the customers
+     * @param banks new bank details of the customers, in the order of the personIds
+     * @return the updated customers in the order of the personIds, null for unknown personIds.
+     * @throws IOException If the patches could not be written to the write-ahead log
+     */
+    public List<Customer> saveBankDetails(List<String> personIds, List<Customer.Bank> banks) throws IOException {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String personId : personIds) {
+            stripes.add(stripeOf(personId));
+        }
+        List<ReentrantLock> locked = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                writeLocks[stripe].lock();
+                locked.add(writeLocks[stripe]);
+            }
+            Map<String, Customer> updatedCustomers = new LinkedHashMap<>();
+            List<BankDetailPatch> entries = new ArrayList<>(personIds.size());
+            List<Customer.Bank> previousBanks = new ArrayList<>(personIds.size());
+            List<Customer> updated = new ArrayList<>(personIds.size());
+            long modifiedAt = System.currentTimeMillis();
+            for (int i = 0; i < personIds.size(); i++) {
+                String personId = personIds.get(i);
+                Customer customer = updatedCustomers.containsKey(personId)
+                        ? updatedCustomers.get(personId) : findByPersonId(personId);
+                if (customer == null) {
+                    updated.add(null);
+                    continue;
+                }
+                BankDetailPatch entry = BankDetailPatch.builder()
+                        .personId(personId)
+                        .version(customer.getVersion() + 1)
+                        .modifiedAt(modifiedAt)
+                        .bank(banks.get(i)).build();
+                entries.add(entry);
+                previousBanks.add(customer.getBank());
+                Customer customerUpdate = withPatch(customer, entry);
+                updatedCustomers.put(personId, customerUpdate);
+                updated.add(customerUpdate);
+            }
+            if (!entries.isEmpty()) {
+                writeAheadLog.append(entries);
+                // entries of a customer are in order, the last one wins
+                for (int i = 0; i < entries.size(); i++) {
+                    putPatch(previousBanks.get(i), entries.get(i));
+                }
+            }
+            return updated;
+        } finally {
+            for (int i = locked.size() - 1; i >= 0; i--) {
+                locked.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * This function folds the patched customers into the customer data file and drops the write-ahead log segments
+     * that are covered by it. The new data file is written next to the current one in the same format and moved
+     * into place atomically.
+     * <p>
+     * A patch holds its write lock from its write-ahead log append until it is in bankDetailPatches. Every write lock
+     * is therefore held while the log is rotated and the patches are copied, so each entry of the sealed segments is
+     * also in the copy that is written to the data file before the segments are deleted.
+     * @throws IOException If the data file could not be rewritten
+     */
+    public void compact() throws IOException {
+        if (isSourceFile(getDataFile())) {
+            throw new IOException("Refusing to compact bank detail patches into source file " + filePath);
+        }
+        maintenanceLock.lock();
+        try {
+            List<Path> sealedSegments;
+            Map<String, BankDetailPatch> compacted;
+            lockAllStripes();
+            try {
+                sealedSegments = writeAheadLog.rotate();
+                compacted = new HashMap<>(bankDetailPatches);
+            } finally {
+                unlockAllStripes();
+            }
+            CustomerSnapshot current = snapshot.get();
+            Consumer<Consumer<Customer>> records = sink -> current.forEach(customer ->
+                    sink.accept(withPatch(customer, compacted.get(customer.getPersonId()))));
+            Path dataFile = getDataFile();
+            if (current instanceof MappedCustomerSnapshot) {
+                CustomerSnapshotWriter.write(dataFile, records);
+            } else {
+                writeJsonLines(dataFile, records);
+            }
+            reload();
+            writeAheadLog.deleteSegments(sealedSegments);
+            // customers patched again while compacting keep their newer patch
+            compacted.forEach((personId, patch) -> bankDetailPatches.remove(personId, patch));
+            log.info("Compacted bank detail patches of {} customers into {}", compacted.size(), filePath);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the statistics of the last load of the customer data file.
+     * @return LoadStatistics with record count and load throughput.
+     */
+    public LoadStatistics getLastLoadStatistics() {
+        return snapshot.get().getLoadStatistics();
+    }
+
+    /**
+     * This function returns a number that changes every time a new snapshot of the customer data file is published.
+     * @return generation of the current snapshot
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public Path getDataFile() {
+        return Paths.get(filePath);
+    }
+
+    private void seedDataFile() throws IOException {
+        Path dataFile = getDataFile();
+        ClassPathResource seed = new ClassPathResource(SEED_DATA_FILE);
+        if (Files.exists(dataFile) || !seed.exists()) {
+            return;
+        }
+        Path directory = dataFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        try (InputStream in = seed.getInputStream()) {
+            Files.copy(in, dataFile);
+        }
+        log.info("Created customer data file {} from classpath:{}", filePath, SEED_DATA_FILE);
+    }
+
+    private static boolean isSourceFile(Path file) {
+        for (Path element : file.toAbsolutePath().normalize()) {
+            if (element.toString().equals("src")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int orProcessors(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * This function returns false if the personIdFilter rules the personId out of the given snapshot. A filter built
+     * for another snapshot, during a reload, rules nothing out.
+     */
+    private boolean mightContain(CustomerSnapshot current, String personId) {
+        PersonIdFilter filter = personIdFilter.get();
+        return filter == null || !filter.covers(current) || filter.mightContain(personId);
+    }
+
+    // called with the write lock of the customer held, previousBank is the bank details the customer has until now
+    private void putPatch(Customer.Bank previousBank, BankDetailPatch patch) {
+        bankDetailPatches.put(patch.getPersonId(), patch);
+        searchIndex.get().reindex(patch.getPersonId(), previousBank, patch.getBank());
+    }
+
+    /**
+     * This function returns the revision of a record read from the given snapshot. The ETag combines the record
+     * version with the load time of the snapshot, the record counts as modified when it was last patched or, if later,
+     * when the snapshot was loaded.
+     */
+    private static CustomerRevision revisionOf(Customer customer, CustomerSnapshot snapshot) {
+        long loadedAt = snapshot.getLoadedAt().toEpochMilli();
+        Long modifiedAt = customer.getModifiedAt();
+        long lastModified = modifiedAt != null ? Math.max(loadedAt, modifiedAt) : loadedAt;
+        return new CustomerRevision(customer.getVersion(), customer.getVersion() + "-" + Long.toString(loadedAt, 36),
+                Instant.ofEpochMilli(lastModified));
+    }
+
+    private static Customer.Bank bankOf(CustomerSnapshot snapshot, String personId) {
+        Customer customer = snapshot.findByPersonId(personId, CustomerView.SEARCH);
+        return customer != null ? customer.getBank() : null;
+    }
 
     /**
-     * This function reads file that conatins customer details as JSON format and return JSON Object .
-     * @return JSONObject object which contains personal details of a customer.
-     * @throws IOException If there is IOEception while reading the JSON file
-     * @throws ParseException If there is parsing exception while reading the JSON contain.
+     * This function returns the record with the bank details, version and modification time of a patch, or the record
+     * itself when there is no patch.
      */
-    public JSONObject readCustomerData() throws IOException, ParseException {
-            String filePath = "src/main/resources/Person.json";
-        try (FileReader reader = new FileReader(filePath)) {
-            JSONParser jsonParser = new JSONParser();
-            Object obj = jsonParser.parse(reader);
-            return (JSONObject) obj;
-        } catch (IOException e) {
-            throw new IOException("Error reading customer data file", e);
+    private static Customer withPatch(Customer customer, BankDetailPatch patch) {
+        if (patch == null) {
+            return customer;
+        }
+        return customer.toBuilder()
+                .bank(patch.getBank())
+                .version(patch.getVersion())
+                .modifiedAt(patch.getModifiedAt()).build();
+    }
+
+    private static void writeJsonLines(Path dataFile, Consumer<Consumer<Customer>> records) throws IOException {
+        Path tempFile = Files.createTempFile(dataFile.toAbsolutePath().getParent(), dataFile.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                records.accept(customer -> {
+                    try {
+                        CustomerDataLoader.writeLine(customer, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tempFile, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // in stripe order, like the batch patch, so the two never wait for each other in a cycle
+    private void lockAllStripes() {
+        for (ReentrantLock lock : writeLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = writeLocks.length - 1; i >= 0; i--) {
+            writeLocks[i].unlock();
+        }
+    }
+
+    private ReentrantLock writeLock(String personId) {
+        return writeLocks[stripeOf(personId)];
+    }
+
+    private static int stripeOf(String personId) {
+        return (BinarySnapshotFormat.hash(personId) & Integer.MAX_VALUE) % WRITE_LOCK_STRIPES;
+    }
+
+    private static ReentrantLock[] createWriteLocks() {
+        ReentrantLock[] locks = new ReentrantLock[WRITE_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
         }
+        return locks;
     }
 }
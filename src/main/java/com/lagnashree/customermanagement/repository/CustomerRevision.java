@@ -0,0 +1,16 @@
+package com.lagnashree.customermanagement.repository;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Version and modification time of a customer record, read without building any view of it. The ETag combines the
+ * record version with the snapshot the record was read from, so it also changes when the data file is reloaded.
+ */
+@Value
+public class CustomerRevision {
+    long version;
+    String eTag;
+    Instant lastModified;
+}
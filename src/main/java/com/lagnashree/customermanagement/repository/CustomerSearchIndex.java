@@ -0,0 +1,330 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Secondary indexes over the customers of one snapshot. Every customer gets an ordinal, its position in the snapshot,
+ * and every indexed value maps to the posting list of the ordinals holding it: a sorted int array while the value is
+ * rare, a bitmap once more than one in DENSE_RATIO customers holds it. A search ORs the postings of the values of a
+ * field and ANDs or ORs the fields, so it touches the matching customers only. Values are compared ignoring case.
+ * The bank fields change with patches and are reindexed per customer, the address fields only change with a new
+ * snapshot.
+ */
+public final class CustomerSearchIndex {
+    private static final int DENSE_RATIO = 32;
+
+    /**
+     * The indexed fields, by the name a search refers to them with.
+     */
+    public enum Field {
+        CITY("city", false),
+        COUNTRY_CODE("countryCode", false),
+        BANK_NAME("bankName", true),
+        PAYMENT_NETWORK("paymentNetwork", true);
+
+        private final String name;
+        private final boolean patchable;
+
+        Field(String name, boolean patchable) {
+            this.name = name;
+            this.patchable = patchable;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final String[] personIds;
+    private final Map<String, Integer> ordinals;
+    private final Map<Field, Map<String, Posting>> postings = new EnumMap<>(Field.class);
+    private final int denseThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CustomerSearchIndex(int capacity) {
+        this.personIds = new String[capacity];
+        this.ordinals = new HashMap<>(capacity * 4 / 3 + 1);
+        this.denseThreshold = Math.max(capacity / DENSE_RATIO, 16);
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * This function indexes every customer of a snapshot. Customers found in bankDetailPatches are indexed with the
+     * bank details of their patch instead of the ones of the snapshot.
+     * @param snapshot snapshot to index
+     * @param bankDetailPatches latest bank detail patch by personId
+     * @return CustomerSearchIndex of the snapshot
+     */
+    public static CustomerSearchIndex build(CustomerSnapshot snapshot, Map<String, BankDetailPatch> bankDetailPatches) {
+        Builder builder = builder(snapshot, bankDetailPatches);
+        snapshot.forEach(CustomerView.SEARCH, builder);
+        return builder.build();
+    }
+
+    /**
+     * This function returns a builder that indexes the customers of a snapshot it is given one by one, so that the
+     * index can be built in the same pass over the snapshot as other indexes. The customers need the fields of
+     * CustomerView.SEARCH.
+     * @param snapshot snapshot to index
+     * @param bankDetailPatches latest bank detail patch by personId
+     * @return Builder of the index of the snapshot
+     */
+    static Builder builder(CustomerSnapshot snapshot, Map<String, BankDetailPatch> bankDetailPatches) {
+        return new Builder(new CustomerSearchIndex(snapshot.size()), bankDetailPatches);
+    }
+
+    private void add(Customer customer, Customer.Bank bank) {
+        int ordinal = ordinals.size();
+        String personId = customer.getPersonId();
+        if (ordinal == personIds.length || ordinals.putIfAbsent(personId, ordinal) != null) {
+            return;
+        }
+        personIds[ordinal] = personId;
+        for (Field field : Field.values()) {
+            addValues(field, ordinal, customer, bank);
+        }
+    }
+
+    /**
+     * This function replaces the indexed bank details of a customer. The customer is taken out of the postings of the
+     * previous bank values only and added to the ones of the new values, so a patch costs the values of the two bank
+     * details and not the number of distinct values. The caller serialises the reindexing of a customer and passes
+     * the bank details the index currently holds for it. Customers that are not part of the indexed snapshot are
+     * ignored.
+     * @param personId personId of the customer
+     * @param previousBank bank details the customer is indexed with
+     * @param bank new bank details of the customer
+     */
+    public void reindex(String personId, Customer.Bank previousBank, Customer.Bank bank) {
+        Integer ordinal = ordinals.get(personId);
+        if (ordinal == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Field field : Field.values()) {
+                if (!field.patchable) {
+                    continue;
+                }
+                removeValues(field, ordinal, previousBank);
+                addValues(field, ordinal, null, bank);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This function finds the customers matching the given values. A customer matches a field if it holds any of the
+     * values given for it.
+     * @param criteria values to look for by field, a field without values is ignored
+     * @param matchAll true if a customer has to match every field, false if matching one field is enough
+     * @param offset number of matching customers to skip, in snapshot order
+     * @param limit maximum number of personIds to return
+     * @return SearchResult with the number of matching customers and the personIds of the requested page
+     */
+    public SearchResult search(Map<Field, List<String>> criteria, boolean matchAll, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = null;
+            for (Map.Entry<Field, List<String>> criterion : criteria.entrySet()) {
+                if (criterion.getValue() == null || criterion.getValue().isEmpty()) {
+                    continue;
+                }
+                BitSet fieldHits = new BitSet(ordinals.size());
+                Map<String, Posting> fieldPostings = postings.get(criterion.getKey());
+                for (String value : criterion.getValue()) {
+                    Posting posting = value == null ? null : fieldPostings.get(normalize(value));
+                    if (posting != null) {
+                        posting.orInto(fieldHits);
+                    }
+                }
+                if (hits == null) {
+                    hits = fieldHits;
+                } else if (matchAll) {
+                    hits.and(fieldHits);
+                } else {
+                    hits.or(fieldHits);
+                }
+            }
+            if (hits == null) {
+                return new SearchResult(0, List.of());
+            }
+            List<String> page = new ArrayList<>(Math.min(limit, 1024));
+            int skipped = 0;
+            for (int ordinal = hits.nextSetBit(0); ordinal >= 0 && page.size() < limit; ordinal = hits.nextSetBit(ordinal + 1)) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(personIds[ordinal]);
+                }
+            }
+            return new SearchResult(hits.cardinality(), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addValues(Field field, int ordinal, Customer customer, Customer.Bank bank) {
+        Map<String, Posting> fieldPostings = postings.get(field);
+        forEachValue(field, customer, bank, value ->
+                fieldPostings.computeIfAbsent(normalize(value), key -> new Posting()).add(ordinal, denseThreshold));
+    }
+
+    private void removeValues(Field field, int ordinal, Customer.Bank bank) {
+        Map<String, Posting> fieldPostings = postings.get(field);
+        forEachValue(field, null, bank, value -> {
+            String key = normalize(value);
+            Posting posting = fieldPostings.get(key);
+            if (posting != null) {
+                posting.remove(ordinal);
+                if (posting.isEmpty()) {
+                    fieldPostings.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * This function passes the values of a field to the consumer, the address fields from the record, the bank fields
+     * from the given bank details. The record is only read for address fields.
+     */
+    private static void forEachValue(Field field, Customer customer, Customer.Bank bank, Consumer<String> consumer) {
+        switch (field) {
+            case CITY:
+                acceptString(customer.getCity(), consumer);
+                break;
+            case COUNTRY_CODE:
+                acceptString(customer.getCountryCode(), consumer);
+                break;
+            case BANK_NAME:
+                if (bank != null) {
+                    acceptString(bank.getBankName(), consumer);
+                }
+                break;
+            case PAYMENT_NETWORK:
+                if (bank != null) {
+                    acceptPaymentNetwork(bank.getDebitCard(), consumer);
+                    if (bank.getCreditCard() != null) {
+                        bank.getCreditCard().forEach(creditCard -> acceptPaymentNetwork(creditCard, consumer));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unknown field " + field);
+        }
+    }
+
+    private static void acceptPaymentNetwork(Customer.Card card, Consumer<String> consumer) {
+        if (card != null) {
+            acceptString(card.getPaymentNetwork(), consumer);
+        }
+    }
+
+    private static void acceptString(String value, Consumer<String> consumer) {
+        if (value != null) {
+            consumer.accept(value);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static final class Builder implements Consumer<Customer> {
+        private final CustomerSearchIndex index;
+        private final Map<String, BankDetailPatch> bankDetailPatches;
+
+        private Builder(CustomerSearchIndex index, Map<String, BankDetailPatch> bankDetailPatches) {
+            this.index = index;
+            this.bankDetailPatches = bankDetailPatches;
+        }
+
+        @Override
+        public void accept(Customer customer) {
+            BankDetailPatch patch = bankDetailPatches.get(customer.getPersonId());
+            index.add(customer, patch != null ? patch.getBank() : customer.getBank());
+        }
+
+        CustomerSearchIndex build() {
+            return index;
+        }
+    }
+
+    /**
+     * Ordinals of the customers holding one value. Kept as a sorted array until it grows past the dense threshold,
+     * from then on as a bitmap.
+     */
+    private static final class Posting {
+        private int[] ordinals = new int[4];
+        private int size;
+        private BitSet bits;
+
+        private void add(int ordinal, int denseThreshold) {
+            if (bits != null) {
+                bits.set(ordinal);
+                return;
+            }
+            // ordinals arrive in increasing order while building, so appending is the common case
+            int index = size == 0 || ordinals[size - 1] < ordinal ? size : Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0 && index < size) {
+                return;
+            }
+            if (size >= denseThreshold) {
+                bits = new BitSet();
+                for (int i = 0; i < size; i++) {
+                    bits.set(ordinals[i]);
+                }
+                bits.set(ordinal);
+                ordinals = null;
+                return;
+            }
+            int insertion = index >= 0 ? index : -index - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, insertion, ordinals, insertion + 1, size - insertion);
+            ordinals[insertion] = ordinal;
+            size++;
+        }
+
+        private void remove(int ordinal) {
+            if (bits != null) {
+                bits.clear(ordinal);
+                return;
+            }
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+                size--;
+            }
+        }
+
+        private boolean isEmpty() {
+            return bits != null ? bits.isEmpty() : size == 0;
+        }
+
+        private void orInto(BitSet target) {
+            if (bits != null) {
+                target.or(bits);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                target.set(ordinals[i]);
+            }
+        }
+    }
+}
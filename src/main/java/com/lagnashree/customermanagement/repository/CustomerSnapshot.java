@@ -0,0 +1,83 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, fully loaded view of the customer data file. A snapshot is built completely before it is published,
+ * so readers holding a reference never see a partially loaded dataset.
+ */
+public interface CustomerSnapshot {
+
+    /**
+     * This function opens the given customer data file as a snapshot. Binary snapshot files written by
+     * CustomerSnapshotWriter are memory-mapped, any other file is streamed as JSON onto the heap.
+     * @param file customer data file
+     * @return CustomerSnapshot of the file
+     * @throws IOException If the file can not be read or is not valid
+     */
+    static CustomerSnapshot open(Path file) throws IOException {
+        return open(file, 1, 1);
+    }
+
+    /**
+     * This function opens the given customer data file as a snapshot. Binary snapshot files written by
+     * CustomerSnapshotWriter are memory-mapped, any other file is loaded onto the heap split into the given number
+     * of segments, using the given number of threads.
+     * @param file customer data file
+     * @param partitions number of segments of a heap snapshot
+     * @param loadThreads number of threads loading a heap snapshot
+     * @return CustomerSnapshot of the file
+     * @throws IOException If the file can not be read or is not valid
+     */
+    static CustomerSnapshot open(Path file, int partitions, int loadThreads) throws IOException {
+        if (BinarySnapshotFormat.isBinarySnapshot(file)) {
+            return MappedCustomerSnapshot.open(file);
+        }
+        return InMemoryCustomerSnapshot.load(file, partitions, loadThreads);
+    }
+
+    /**
+     * This function returns the customer with the given personId.
+     * @param personId personId of the customer
+     * @return Customer record of the customer, or null if the personId is unknown.
+     */
+    Customer findByPersonId(String personId);
+
+    /**
+     * This function returns the customer with the given personId with at least the fields of the given view.
+     * Snapshots that decode records on lookup only decode those fields.
+     * @param personId personId of the customer
+     * @param view view the record is read for
+     * @return Customer record of the customer, or null if the personId is unknown.
+     */
+    default Customer findByPersonId(String personId, CustomerView view) {
+        return findByPersonId(personId);
+    }
+
+    /**
+     * This function passes every customer of the snapshot to the consumer, one record at a time.
+     * @param consumer receives every customer record
+     */
+    void forEach(Consumer<Customer> consumer);
+
+    /**
+     * This function passes every customer of the snapshot with at least the fields of the given view to the consumer,
+     * one record at a time. Snapshots that decode records on lookup only decode those fields.
+     * @param view view the records are read for
+     * @param consumer receives every customer record
+     */
+    default void forEach(CustomerView view, Consumer<Customer> consumer) {
+        forEach(consumer);
+    }
+
+    int size();
+
+    LoadStatistics getLoadStatistics();
+
+    Instant getLoadedAt();
+}
@@ -0,0 +1,176 @@
+package com.lagnashree.customermanagement.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Converts customer records into the memory-mapped binary snapshot layout described in BinarySnapshotFormat.
+ * The snapshot is written to a temporary file next to the target and moved into place once it is complete.
+ * <p>
+ * Usage: {@code CustomerSnapshotWriter <customer json file> <snapshot file>}
+ */
+@Slf4j
+public final class CustomerSnapshotWriter {
+    private CustomerSnapshotWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CustomerSnapshotWriter <customer json file> <snapshot file>");
+            System.exit(1);
+        }
+        LoadStatistics statistics = convert(Paths.get(args[0]), Paths.get(args[1]));
+        log.info("Wrote {} customer records to {} in {} ms", statistics.getRecords(), args[1], statistics.getElapsedMillis());
+    }
+
+    /**
+     * This function converts a customer data file in JSON object, JSON array or NDJSON layout into a binary snapshot.
+     * @param jsonFile customer data file to convert
+     * @param snapshotFile binary snapshot file to write
+     * @return LoadStatistics of the conversion
+     * @throws IOException If the JSON file can not be read or the snapshot can not be written
+     */
+    public static LoadStatistics convert(Path jsonFile, Path snapshotFile) throws IOException {
+        return write(snapshotFile, sink -> {
+            try {
+                CustomerDataLoader.load(jsonFile, sink);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * This function writes all customer records the producer hands to its sink into a binary snapshot.
+     * Records sharing a personId are stored once, the last one wins.
+     * @param snapshotFile binary snapshot file to write
+     * @param producer passes every customer record to the given sink
+     * @return LoadStatistics of the write
+     * @throws IOException If the snapshot can not be written
+     */
+    public static LoadStatistics write(Path snapshotFile, Consumer<Consumer<Customer>> producer) throws IOException {
+        long start = System.nanoTime();
+        Path tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            RecordAppender appender = new RecordAppender(channel);
+            try {
+                producer.accept(appender);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            appender.flush();
+
+            int slotCount = BinarySnapshotFormat.slotCount(appender.count);
+            long indexOffset = appender.position;
+            long fileSize = indexOffset + (long) slotCount * BinarySnapshotFormat.SLOT_SIZE;
+            SnapshotMapping buffer = SnapshotMapping.map(channel, FileChannel.MapMode.READ_WRITE, fileSize);
+            int records = buildIndex(buffer, appender, indexOffset, slotCount);
+            buffer.putInt(0, BinarySnapshotFormat.MAGIC)
+                    .putInt(4, BinarySnapshotFormat.VERSION)
+                    .putInt(8, records)
+                    .putInt(12, slotCount)
+                    .putLong(16, indexOffset)
+                    .putLong(24, 0L);
+            buffer.force();
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return LoadStatistics.builder()
+                    .records(records)
+                    .skippedRecords(appender.count - records)
+                    .elapsedNanos(System.nanoTime() - start)
+                    .build();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static int buildIndex(SnapshotMapping buffer, RecordAppender appender, long indexOffset, int slotCount) {
+        int mask = slotCount - 1;
+        int records = 0;
+        for (int i = 0; i < appender.count; i++) {
+            int hash = appender.hashes[i];
+            long offset = appender.offsets[i];
+            int slot = hash & mask;
+            while (true) {
+                long slotPosition = indexOffset + (long) slot * BinarySnapshotFormat.SLOT_SIZE;
+                long existing = buffer.getLong(slotPosition + 4);
+                if (existing == 0) {
+                    buffer.putInt(slotPosition, hash).putLong(slotPosition + 4, offset);
+                    records++;
+                    break;
+                }
+                if (buffer.getInt(slotPosition) == hash && samePersonId(buffer, existing, offset)) {
+                    buffer.putLong(slotPosition + 4, offset);
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return records;
+    }
+
+    private static boolean samePersonId(SnapshotMapping buffer, long existingOffset, long offset) {
+        byte[] personId = BinarySnapshotFormat.readString(buffer.at(offset)).getBytes(StandardCharsets.UTF_8);
+        return BinarySnapshotFormat.personIdMatches(buffer.at(existingOffset), personId);
+    }
+
+    /**
+     * Appends encoded records behind the header and remembers their hash and offset for the index.
+     */
+    private static final class RecordAppender implements Consumer<Customer> {
+        private final OutputStream out;
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+        private long position = BinarySnapshotFormat.HEADER_SIZE;
+        private int count;
+        private int[] hashes = new int[1024];
+        private long[] offsets = new long[1024];
+
+        private RecordAppender(FileChannel channel) throws IOException {
+            channel.position(BinarySnapshotFormat.HEADER_SIZE);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        }
+
+        @Override
+        public void accept(Customer customer) {
+            String personId = customer.getPersonId();
+            record.reset();
+            BinarySnapshotFormat.encodeRecord(customer, record);
+            if (record.size() > SnapshotMapping.MAX_RECORD_SIZE) {
+                throw new UncheckedIOException(new IOException("customer record of personId=" + personId + " exceeds "
+                        + SnapshotMapping.MAX_RECORD_SIZE + " bytes"));
+            }
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            hashes[count] = BinarySnapshotFormat.hash(personId);
+            offsets[count] = position;
+            count++;
+            try {
+                record.writeTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position += record.size();
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.lagnashree.customermanagement.repository;
+
+import java.util.Set;
+
+/**
+ * The views of a customer record that the API serves, each with the top-level fields of the record it is built
+ * from. Snapshots that decode records on lookup skip all other fields.
+ */
+public enum CustomerView {
+    PERSONAL_DETAILS("personalDetails", "firstName", "lastName", "personId", "dob", "streetName", "houseNumber",
+            "city", "country", "countryCode", "phone", "version"),
+    BANK_DETAILS("bankDetails", "firstName", "lastName", "personId", "bank", "version"),
+    QUALIFICATIONS("qualifications", "firstName", "lastName", "education", "version"),
+    FULL_PROFILE("fullProfile", "firstName", "lastName", "personId", "dob", "streetName", "houseNumber", "city",
+            "country", "countryCode", "phone", "bank", "education", "version"),
+    CUSTOMER("customer"),
+    // version and modification time only, read to answer conditional requests
+    REVISION("revision", "version", "modifiedAt"),
+    // fields of the search index, read to build it
+    SEARCH("search", "personId", "city", "countryCode", "bank"),
+    // fields of the phone number index, read to build it
+    PHONE_NUMBERS("phoneNumbers", "personId", "phone"),
+    // personId only, read to build the personId filter
+    PERSON_ID("personId", "personId"),
+    // fields of the search index, the phone number index and the personId filter, read to build all three in one pass
+    INDEXES("indexes", "personId", "city", "countryCode", "bank", "phone");
+
+    private final String requestType;
+    private final Set<String> fields;
+
+    CustomerView(String requestType, String... fields) {
+        this.requestType = requestType;
+        this.fields = Set.of(fields);
+    }
+
+    public String getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * This function returns the top-level fields of the record the view needs, an empty set means the whole record.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public boolean isWholeRecord() {
+        return fields.isEmpty();
+    }
+}
@@ -0,0 +1,289 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Snapshot that holds every customer of a JSON data file on the heap. The customers are split into segments by
+ * personId hash; a lookup goes straight to its segment. Newline-delimited files (.ndjson, .jsonl) are cut into
+ * line-aligned byte ranges that are parsed in parallel, and every segment builds its index in parallel as well.
+ */
+public final class InMemoryCustomerSnapshot implements CustomerSnapshot {
+    private final List<Map<String, Customer>> segments;
+    private final int size;
+    private final LoadStatistics loadStatistics;
+    private final Instant loadedAt;
+
+    private InMemoryCustomerSnapshot(List<Map<String, Customer>> segments, LoadStatistics loadStatistics) {
+        this.segments = segments;
+        this.size = segments.stream().mapToInt(Map::size).sum();
+        this.loadStatistics = loadStatistics;
+        this.loadedAt = Instant.now();
+    }
+
+    /**
+     * This function streams the given customer data file into a new single segment snapshot.
+     * @param file customer data file in JSON object, JSON array or NDJSON layout
+     * @return InMemoryCustomerSnapshot with all customers of the file indexed by personId
+     * @throws IOException If the file can not be read or is not valid JSON
+     */
+    public static InMemoryCustomerSnapshot load(Path file) throws IOException {
+        return load(file, 1, 1);
+    }
+
+    /**
+     * This function loads the given customer data file into a new snapshot with the given number of segments.
+     * @param file customer data file in JSON object, JSON array or NDJSON layout
+     * @param partitions number of segments to split the customers into
+     * @param loadThreads number of threads that parse and index the file
+     * @return InMemoryCustomerSnapshot with all customers of the file indexed by personId
+     * @throws IOException If the file can not be read or is not valid JSON
+     */
+    public static InMemoryCustomerSnapshot load(Path file, int partitions, int loadThreads) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(loadThreads);
+        try {
+            List<ByteRange> ranges = isSplittable(file) ? split(file, loadThreads) : List.of(ByteRange.WHOLE_FILE);
+            List<ParsedRange> parsed = pool.submit(() -> ranges.parallelStream()
+                    .map(range -> parse(file, range, partitions))
+                    .collect(Collectors.toList())).get();
+            List<SegmentBuild> built = pool.submit(() -> IntStream.range(0, partitions).parallel()
+                    .mapToObj(segment -> buildSegment(segment, parsed))
+                    .collect(Collectors.toList())).get();
+
+            List<Map<String, Customer>> segments = new ArrayList<>(partitions);
+            List<LoadStatistics.Segment> segmentStatistics = new ArrayList<>(partitions);
+            for (SegmentBuild segment : built) {
+                segments.add(segment.customers);
+                segmentStatistics.add(segment.statistics);
+            }
+            LoadStatistics statistics = LoadStatistics.builder()
+                    .records(parsed.stream().mapToLong(range -> range.statistics.getRecords()).sum())
+                    .skippedRecords(parsed.stream().mapToLong(range -> range.statistics.getSkippedRecords()).sum())
+                    .elapsedNanos(System.nanoTime() - start)
+                    .segments(segmentStatistics)
+                    .build();
+            return new InMemoryCustomerSnapshot(segments, statistics);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading customer data", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Error loading customer data", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public Customer findByPersonId(String personId) {
+        return segments.get(segmentOf(personId, segments.size())).get(personId);
+    }
+
+    @Override
+    public void forEach(Consumer<Customer> consumer) {
+        for (Map<String, Customer> segment : segments) {
+            segment.values().forEach(consumer);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    @Override
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    private static int segmentOf(String personId, int partitions) {
+        return Math.floorMod(BinarySnapshotFormat.hash(personId), partitions);
+    }
+
+    private static boolean isSplittable(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    /**
+     * This function cuts the file into about the given number of byte ranges that each start at the beginning of a line.
+     */
+    private static List<ByteRange> split(Path file, int count) throws IOException {
+        List<ByteRange> ranges = new ArrayList<>(count);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            for (int i = 1; i <= count && start < size; i++) {
+                long end = i == count ? size : Math.max(start, size * i / count);
+                // move the end behind the next line break so no record is cut in two
+                while (end < size) {
+                    buffer.clear();
+                    int read = channel.read(buffer, end);
+                    int newline = -1;
+                    for (int b = 0; b < read && newline < 0; b++) {
+                        if (buffer.get(b) == '\n') {
+                            newline = b;
+                        }
+                    }
+                    if (newline >= 0) {
+                        end += newline + 1;
+                        break;
+                    }
+                    end += read;
+                }
+                ranges.add(new ByteRange(start, end));
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    private static ParsedRange parse(Path file, ByteRange range, int partitions) {
+        List<List<Customer>> buckets = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        Consumer<Customer> router = customer ->
+                buckets.get(segmentOf(customer.getPersonId(), partitions)).add(customer);
+        try {
+            if (range == ByteRange.WHOLE_FILE) {
+                return new ParsedRange(buckets, CustomerDataLoader.load(file, router));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                 InputStream in = new RangeInputStream(channel, range)) {
+                return new ParsedRange(buckets, CustomerDataLoader.load(in, router));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * This function indexes the customers of one segment. Ranges are applied in file order, so the last record of a
+     * personId wins just like in a sequential load.
+     */
+    private static SegmentBuild buildSegment(int segment, List<ParsedRange> parsed) {
+        long start = System.nanoTime();
+        int expected = parsed.stream().mapToInt(range -> range.buckets.get(segment).size()).sum();
+        Map<String, Customer> customers = new HashMap<>(Math.max(16, (int) (expected / 0.75f) + 1));
+        for (ParsedRange range : parsed) {
+            for (Customer customer : range.buckets.get(segment)) {
+                customers.put(customer.getPersonId(), customer);
+            }
+        }
+        LoadStatistics.Segment statistics = LoadStatistics.Segment.builder()
+                .index(segment)
+                .records(customers.size())
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+        return new SegmentBuild(customers, statistics);
+    }
+
+    private static final class ByteRange {
+        private static final ByteRange WHOLE_FILE = new ByteRange(0, -1);
+        private final long start;
+        private final long end;
+
+        private ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class ParsedRange {
+        private final List<List<Customer>> buckets;
+        private final LoadStatistics statistics;
+
+        private ParsedRange(List<List<Customer>> buckets, LoadStatistics statistics) {
+            this.buckets = buckets;
+            this.statistics = statistics;
+        }
+    }
+
+    private static final class SegmentBuild {
+        private final Map<String, Customer> customers;
+        private final LoadStatistics.Segment statistics;
+
+        private SegmentBuild(Map<String, Customer> customers, LoadStatistics.Segment statistics) {
+            this.customers = customers;
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * Reads one byte range of a file with positional reads, so several ranges of the same file can be read at once.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private long position;
+        private final long end;
+
+        private RangeInputStream(FileChannel channel, ByteRange range) {
+            this.channel = channel;
+            this.position = range.start;
+            this.end = range.end;
+            buffer.limit(0);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        private boolean fill() throws IOException {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return false;
+            }
+            position += read;
+            buffer.flip();
+            return true;
+        }
+    }
+}
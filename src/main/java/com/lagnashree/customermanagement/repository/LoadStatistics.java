@@ -0,0 +1,41 @@
+package com.lagnashree.customermanagement.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Value
+@Builder
+public class LoadStatistics {
+    long records;
+    long skippedRecords;
+    long elapsedNanos;
+    @Builder.Default
+    List<Segment> segments = List.of();
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * This function returns the load throughput of the data file.
+     * @return number of customer records loaded per second.
+     */
+    public long getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : records * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Value
+    @Builder
+    public static class Segment {
+        int index;
+        long records;
+        long elapsedNanos;
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+    }
+}
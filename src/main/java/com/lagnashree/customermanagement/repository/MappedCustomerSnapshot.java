@@ -0,0 +1,120 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot that serves customers straight from a memory-mapped binary snapshot file. Opening only validates the
+ * header, a lookup probes the offset index and decodes the one record it hits, so no customer lives on the heap.
+ * Fields the requested view does not need are skipped without being decoded, the others are read straight into a
+ * Customer. Files beyond 2 GiB are mapped in chunks, see SnapshotMapping.
+ */
+public final class MappedCustomerSnapshot implements CustomerSnapshot {
+    private final SnapshotMapping buffer;
+    private final int recordCount;
+    private final int slotMask;
+    private final long indexOffset;
+    private final LoadStatistics loadStatistics;
+    private final Instant loadedAt;
+
+    private MappedCustomerSnapshot(SnapshotMapping buffer, long start) throws IOException {
+        if (buffer.size() < BinarySnapshotFormat.HEADER_SIZE || buffer.getInt(0) != BinarySnapshotFormat.MAGIC) {
+            throw new IOException("not a customer snapshot file");
+        }
+        if (buffer.getInt(4) != BinarySnapshotFormat.VERSION) {
+            throw new IOException("unsupported customer snapshot version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.recordCount = buffer.getInt(8);
+        this.slotMask = buffer.getInt(12) - 1;
+        this.indexOffset = buffer.getLong(16);
+        this.loadStatistics = LoadStatistics.builder()
+                .records(recordCount)
+                .elapsedNanos(System.nanoTime() - start)
+                .build();
+        this.loadedAt = Instant.now();
+    }
+
+    /**
+     * This function maps the given binary snapshot file read-only.
+     * @param file binary snapshot file written by CustomerSnapshotWriter
+     * @return MappedCustomerSnapshot of the file
+     * @throws IOException If the file can not be mapped or is not a valid snapshot
+     */
+    public static MappedCustomerSnapshot open(Path file) throws IOException {
+        return open(file, SnapshotMapping.CHUNK_SHIFT);
+    }
+
+    static MappedCustomerSnapshot open(Path file, int chunkShift) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedCustomerSnapshot(SnapshotMapping.map(channel, FileChannel.MapMode.READ_ONLY, channel.size(), chunkShift), start);
+        }
+    }
+
+    @Override
+    public Customer findByPersonId(String personId) {
+        return findByPersonId(personId, CustomerView.CUSTOMER);
+    }
+
+    @Override
+    public Customer findByPersonId(String personId, CustomerView view) {
+        byte[] personIdBytes = personId.getBytes(StandardCharsets.UTF_8);
+        int hash = BinarySnapshotFormat.hash(personId);
+        int slot = hash & slotMask;
+        while (true) {
+            long slotPosition = indexOffset + (long) slot * BinarySnapshotFormat.SLOT_SIZE;
+            long offset = buffer.getLong(slotPosition + 4);
+            if (offset == 0) {
+                return null;
+            }
+            if (buffer.getInt(slotPosition) == hash) {
+                ByteBuffer record = buffer.at(offset);
+                if (BinarySnapshotFormat.personIdMatches(record, personIdBytes)) {
+                    return BinarySnapshotFormat.readRecord(record, view);
+                }
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Customer> consumer) {
+        forEach(CustomerView.CUSTOMER, consumer);
+    }
+
+    @Override
+    public void forEach(CustomerView view, Consumer<Customer> consumer) {
+        for (int slot = 0; slot <= slotMask; slot++) {
+            long offset = buffer.getLong(indexOffset + (long) slot * BinarySnapshotFormat.SLOT_SIZE + 4);
+            if (offset != 0) {
+                ByteBuffer record = buffer.at(offset);
+                BinarySnapshotFormat.readString(record);
+                consumer.accept(BinarySnapshotFormat.readRecord(record, view));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return recordCount;
+    }
+
+    @Override
+    public LoadStatistics getLoadStatistics() {
+        return loadStatistics;
+    }
+
+    @Override
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+}
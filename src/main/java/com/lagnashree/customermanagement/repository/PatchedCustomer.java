@@ -0,0 +1,14 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import lombok.Value;
+
+/**
+ * A customer record right after a bank detail patch, with its revision as of the patch. The revision is taken while
+ * the patch still holds the record, so its ETag belongs to exactly this record.
+ */
+@Value
+public class PatchedCustomer {
+    Customer customer;
+    CustomerRevision revision;
+}
@@ -0,0 +1,156 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+
+import java.util.function.Consumer;
+
+/**
+ * Bloom filter over the personIds of one snapshot. A personId the filter does not contain is certainly not part of
+ * the snapshot, so lookups of unknown ids are answered from a bit array small enough to stay in the CPU caches,
+ * without probing the snapshot. A contained personId is part of the snapshot with about the configured false
+ * positive rate. The filter is split into blocks of one 64-byte cache line: the upper half of the hash of an id picks
+ * its block, the lower half its k bits within the block, so a lookup touches one cache line and divides nothing.
+ * Immutable once built.
+ */
+final class PersonIdFilter {
+    private static final double LN2 = Math.log(2);
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final CustomerSnapshot snapshot;
+    private final long[] words;
+    private final long blockCount;
+    private final int hashCount;
+
+    private PersonIdFilter(CustomerSnapshot snapshot, long blockCount, int hashCount) {
+        this.snapshot = snapshot;
+        this.words = new long[Math.toIntExact(blockCount * BLOCK_WORDS)];
+        this.blockCount = blockCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * This function adds the personId of every customer of a snapshot to a new filter, sized for the given false
+     * positive rate.
+     * @param snapshot snapshot to cover
+     * @param falsePositiveRate share of unknown personIds the filter may let through, between 0 and 1
+     * @return PersonIdFilter of the snapshot
+     */
+    static PersonIdFilter build(CustomerSnapshot snapshot, double falsePositiveRate) {
+        Builder builder = builder(snapshot, falsePositiveRate);
+        snapshot.forEach(CustomerView.PERSON_ID, builder);
+        return builder.build();
+    }
+
+    /**
+     * This function returns a builder adding the personIds of the customers of a snapshot it is given one by one to
+     * a new filter, so that the filter can be built in the same pass over the snapshot as the indexes.
+     * @param snapshot snapshot to cover
+     * @param falsePositiveRate share of unknown personIds the filter may let through, between 0 and 1
+     * @return Builder of the filter of the snapshot
+     */
+    static Builder builder(CustomerSnapshot snapshot, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("false positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long expected = Math.max(snapshot.size(), 1);
+        // m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes minimise the false positive rate
+        double bitsPerId = -Math.log(falsePositiveRate) / (LN2 * LN2);
+        long blockCount = Math.max(1, (long) Math.ceil(expected * bitsPerId / BLOCK_BITS));
+        int hashCount = Math.max(1, (int) Math.round(bitsPerId * LN2));
+        return new Builder(new PersonIdFilter(snapshot, blockCount, hashCount));
+    }
+
+    /**
+     * This function returns true if the filter was built for the given snapshot. A filter answers for its own
+     * snapshot only, a newer snapshot may hold personIds it has never seen.
+     */
+    boolean covers(CustomerSnapshot snapshot) {
+        return this.snapshot == snapshot;
+    }
+
+    /**
+     * This function returns false if the personId is certainly not part of the snapshot, true if it may be.
+     * @param personId personId to look for
+     * @return boolean, false for a personId the snapshot does not hold
+     */
+    boolean mightContain(String personId) {
+        long hash = hash(personId);
+        int block = block(hash);
+        long bits = hash * GOLDEN_GAMMA;
+        for (int i = 0; i < hashCount; i++) {
+            // 9 bits address one bit of the block, a 64-bit value holds seven of them
+            if (i % 7 == 0 && i > 0) {
+                bits = (bits + GOLDEN_GAMMA) * GOLDEN_GAMMA;
+            }
+            int bit = (int) (bits >>> (i % 7 * 9)) & (BLOCK_BITS - 1);
+            if ((words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getBitCount() {
+        return blockCount * BLOCK_BITS;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    private void add(String personId) {
+        long hash = hash(personId);
+        int block = block(hash);
+        long bits = hash * GOLDEN_GAMMA;
+        for (int i = 0; i < hashCount; i++) {
+            if (i % 7 == 0 && i > 0) {
+                bits = (bits + GOLDEN_GAMMA) * GOLDEN_GAMMA;
+            }
+            int bit = (int) (bits >>> (i % 7 * 9)) & (BLOCK_BITS - 1);
+            words[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    static final class Builder implements Consumer<Customer> {
+        private final PersonIdFilter filter;
+
+        private Builder(PersonIdFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void accept(Customer customer) {
+            filter.add(customer.getPersonId());
+        }
+
+        PersonIdFilter build() {
+            return filter;
+        }
+    }
+
+    /**
+     * This function returns the index of the first word of the block of a hash, mapping the upper 32 bits of the hash
+     * onto the blocks with a multiplication instead of a modulo.
+     */
+    private int block(long hash) {
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * BLOCK_WORDS;
+    }
+
+    /**
+     * This function returns a 64-bit FNV-1a hash of the characters of the personId, finished with the MurmurHash3
+     * mix so that ids differing in their last character spread over the whole hash.
+     */
+    private static long hash(String personId) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < personId.length(); i++) {
+            hash = (hash ^ personId.charAt(i)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,195 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import com.lagnashree.customermanagement.model.PhoneNumber;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reverse index from the normalised phone numbers of the customers of one snapshot to their personIds. The entries
+ * are sorted by number and the numbers are packed back to back into one ASCII byte array, so millions of numbers
+ * take a few arrays instead of millions of strings. An exact or prefix lookup is two binary searches for the first
+ * and the last matching entry, the total is their distance, so a page is answered without touching the other matches.
+ * The index is immutable, a new one is built with every snapshot.
+ */
+public final class PhoneNumberIndex {
+    // normalised numbers of all entries, back to back in sorted order
+    private final byte[] numbers;
+    // numbers of entry i span numberOffsets[i] to numberOffsets[i + 1]
+    private final int[] numberOffsets;
+    private final String[] personIds;
+
+    private PhoneNumberIndex(byte[] numbers, int[] numberOffsets, String[] personIds) {
+        this.numbers = numbers;
+        this.numberOffsets = numberOffsets;
+        this.personIds = personIds;
+    }
+
+    /**
+     * This function indexes the phone numbers of every customer of a snapshot. Patches only replace bank details, so
+     * the numbers of the snapshot are the current ones. A number a customer lists twice is indexed once.
+     * @param snapshot snapshot to index
+     * @return PhoneNumberIndex of the snapshot
+     */
+    public static PhoneNumberIndex build(CustomerSnapshot snapshot) {
+        Builder builder = builder(snapshot);
+        snapshot.forEach(CustomerView.PHONE_NUMBERS, builder);
+        return builder.build();
+    }
+
+    /**
+     * This function returns a builder collecting the phone numbers of the customers of a snapshot it is given one by
+     * one, so that the index can be built in the same pass over the snapshot as other indexes. The customers need the
+     * fields of CustomerView.PHONE_NUMBERS.
+     * @param snapshot snapshot to index
+     * @return Builder of the index of the snapshot
+     */
+    static Builder builder(CustomerSnapshot snapshot) {
+        return new Builder(snapshot.size());
+    }
+
+    private static PhoneNumberIndex of(List<Entry> entries) {
+        entries.sort(Comparator.comparing(Entry::getNumber).thenComparing(Entry::getPersonId));
+
+        int length = 0;
+        for (Entry entry : entries) {
+            length += entry.getNumber().length();
+        }
+        byte[] numbers = new byte[length];
+        int[] numberOffsets = new int[entries.size() + 1];
+        String[] personIds = new String[entries.size()];
+        int count = 0;
+        int offset = 0;
+        Entry previous = null;
+        for (Entry entry : entries) {
+            if (previous != null && previous.equals(entry)) {
+                continue;
+            }
+            byte[] number = entry.getNumber().getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(number, 0, numbers, offset, number.length);
+            offset += number.length;
+            personIds[count] = entry.getPersonId();
+            numberOffsets[++count] = offset;
+            previous = entry;
+        }
+        return new PhoneNumberIndex(Arrays.copyOf(numbers, offset), Arrays.copyOf(numberOffsets, count + 1),
+                Arrays.copyOf(personIds, count));
+    }
+
+    /**
+     * This function finds the customers holding a phone number equal to, or starting with, the given number. The
+     * number is normalised the way customer numbers are, so "+358 40-123" finds "+35840123456".
+     * @param number phone number or prefix of a phone number to look for
+     * @param prefix true to match every number starting with the given one, false to match it exactly
+     * @param offset number of matches to skip, in number order
+     * @param limit maximum number of matches to return
+     * @return PhoneNumberSearchResult with the number of matches and the matches of the requested page
+     */
+    public PhoneNumberSearchResult search(String number, boolean prefix, int offset, int limit) {
+        String normalized = PhoneNumber.of(number).getNormalized();
+        if (normalized.isEmpty()) {
+            return new PhoneNumberSearchResult(0, List.of());
+        }
+        byte[] query = normalized.getBytes(StandardCharsets.US_ASCII);
+        int from = lowerBound(query, prefix, false);
+        int to = lowerBound(query, prefix, true);
+        int first = offset < to - from ? from + offset : to;
+        List<PhoneNumberSearchResult.Match> page = new ArrayList<>(Math.min(limit, to - first));
+        for (int entry = first; entry < to && page.size() < limit; entry++) {
+            page.add(new PhoneNumberSearchResult.Match(numberAt(entry), personIds[entry]));
+        }
+        return new PhoneNumberSearchResult(to - from, page);
+    }
+
+    public int size() {
+        return personIds.length;
+    }
+
+    /**
+     * This function returns the first entry whose number is not less than the query, or when after is set the first
+     * entry whose number sorts after every match: after the query itself for an exact lookup, after every number
+     * starting with the query for a prefix lookup.
+     */
+    private int lowerBound(byte[] query, boolean prefix, boolean after) {
+        int low = 0;
+        int high = personIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(middle, query, prefix, after);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This function compares the number of an entry with the query, with after as if the query had one more
+     * character: one sorting before every digit for an exact lookup, one sorting after every digit for a prefix lookup.
+     */
+    private int compare(int entry, byte[] query, boolean prefix, boolean after) {
+        int start = numberOffsets[entry];
+        int length = numberOffsets[entry + 1] - start;
+        int common = Math.min(length, query.length);
+        for (int i = 0; i < common; i++) {
+            int difference = numbers[start + i] - query[i];
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        if (length < query.length) {
+            return -1;
+        }
+        if (!after) {
+            return length == query.length ? 0 : 1;
+        }
+        if (!prefix) {
+            return length == query.length ? -1 : 1;
+        }
+        return -1;
+    }
+
+    private String numberAt(int entry) {
+        int start = numberOffsets[entry];
+        return new String(numbers, start, numberOffsets[entry + 1] - start, StandardCharsets.US_ASCII);
+    }
+
+    static final class Builder implements Consumer<Customer> {
+        private final List<Entry> entries;
+
+        private Builder(int customers) {
+            this.entries = new ArrayList<>(customers);
+        }
+
+        @Override
+        public void accept(Customer customer) {
+            if (customer.getPhone() == null) {
+                return;
+            }
+            for (PhoneNumber phoneNumber : customer.getPhone()) {
+                String normalized = phoneNumber.getNormalized();
+                if (!normalized.isEmpty()) {
+                    entries.add(new Entry(normalized, customer.getPersonId()));
+                }
+            }
+        }
+
+        PhoneNumberIndex build() {
+            return of(entries);
+        }
+    }
+
+    @Value
+    private static class Entry {
+        String number;
+        String personId;
+    }
+}
@@ -0,0 +1,22 @@
+package com.lagnashree.customermanagement.repository;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of the phone numbers matching a lookup with the personId holding each, with the number of matches over
+ * all pages.
+ */
+@Value
+public class PhoneNumberSearchResult {
+    long total;
+    List<Match> matches;
+
+    @Value
+    public static class Match {
+        // normalised phone number
+        String phoneNumber;
+        String personId;
+    }
+}
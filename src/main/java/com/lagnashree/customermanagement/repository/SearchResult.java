@@ -0,0 +1,14 @@
+package com.lagnashree.customermanagement.repository;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of the customers matching a search, with the number of matches over all pages.
+ */
+@Value
+public class SearchResult {
+    long total;
+    List<String> personIds;
+}
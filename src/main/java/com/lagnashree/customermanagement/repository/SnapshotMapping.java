@@ -0,0 +1,89 @@
+package com.lagnashree.customermanagement.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory mapping of a binary snapshot file of any size. A single MappedByteBuffer is limited to 2 GiB, so the file is
+ * mapped in chunks of 1 GiB addressed with long offsets. The mapping of a chunk reaches up to 1 GiB into the next one,
+ * so a record or index slot starting in a chunk is always readable from that chunk's buffer, whichever boundary it
+ * crosses. The overlapping part is the same page cache, it only costs address space.
+ */
+final class SnapshotMapping {
+    static final int CHUNK_SHIFT = 30;
+    // a record has to fit into the overlap of two chunk mappings
+    static final int MAX_RECORD_SIZE = (1 << CHUNK_SHIFT) - 1;
+
+    private final MappedByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final long size;
+
+    private SnapshotMapping(MappedByteBuffer[] chunks, int chunkShift, long size) {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.size = size;
+    }
+
+    /**
+     * This function maps the first size bytes of the given file.
+     * @param channel open channel of the snapshot file
+     * @param mode READ_ONLY to read a snapshot, READ_WRITE to build one
+     * @param size number of bytes to map
+     * @return SnapshotMapping of the file
+     * @throws IOException If the file can not be mapped
+     */
+    static SnapshotMapping map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        return map(channel, mode, size, CHUNK_SHIFT);
+    }
+
+    static SnapshotMapping map(FileChannel channel, FileChannel.MapMode mode, long size, int chunkShift) throws IOException {
+        long chunkSize = 1L << chunkShift;
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) Math.max(1, (size + chunkSize - 1) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            long base = (long) i << chunkShift;
+            chunks[i] = channel.map(mode, base, Math.min(size - base, 2 * chunkSize - 1));
+        }
+        return new SnapshotMapping(chunks, chunkShift, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    int getInt(long offset) {
+        return chunks[(int) (offset >>> chunkShift)].getInt((int) (offset & chunkMask));
+    }
+
+    long getLong(long offset) {
+        return chunks[(int) (offset >>> chunkShift)].getLong((int) (offset & chunkMask));
+    }
+
+    SnapshotMapping putInt(long offset, int value) {
+        chunks[(int) (offset >>> chunkShift)].putInt((int) (offset & chunkMask), value);
+        return this;
+    }
+
+    SnapshotMapping putLong(long offset, long value) {
+        chunks[(int) (offset >>> chunkShift)].putLong((int) (offset & chunkMask), value);
+        return this;
+    }
+
+    /**
+     * This function returns a buffer positioned at the given offset, for reading one record.
+     * @param offset file offset of the record
+     * @return ByteBuffer with its own position, valid up to the end of the chunk mapping
+     */
+    ByteBuffer at(long offset) {
+        return chunks[(int) (offset >>> chunkShift)].duplicate().position((int) (offset & chunkMask));
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.lagnashree.customermanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.lagnashree.customermanagement.dto.BulkPatchResultDTO;
+import com.lagnashree.customermanagement.dto.PatchBankDetailDTO;
+import com.lagnashree.customermanagement.exception.InternalException;
+import com.lagnashree.customermanagement.exception.TooManyRequestsException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a stream of newline-delimited PatchBankDetailDTO records. Every record is validated with the constraints of
+ * the PATCH endpoint, valid records are applied in batches that share one write-ahead log append, and the outcome of
+ * every record is streamed back in input order, followed by a summary line. Only a limited number of imports run at
+ * a time so that bulk work can not take over the request threads serving lookups.
+ */
+@Service
+@Slf4j
+public class BankDetailBulkImporter {
+    private final CustomerManagementService customerManagementService;
+    private final ObjectReader patchReader;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final Semaphore runningImports;
+
+    public BankDetailBulkImporter(CustomerManagementService customerManagementService, ObjectMapper objectMapper, Validator validator,
+                                  @Value("${customer.bulk.batch-size:500}") int batchSize,
+                                  @Value("${customer.bulk.max-concurrent-imports:1}") int maxConcurrentImports) {
+        this.customerManagementService = customerManagementService;
+        this.objectMapper = objectMapper;
+        this.patchReader = objectMapper.readerFor(PatchBankDetailDTO.class);
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.runningImports = new Semaphore(maxConcurrentImports);
+    }
+
+    /**
+     * Opens the stream the outcomes are written to, once the import has been admitted.
+     */
+    public interface ResultStream {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * This function reads patches from the input, applies them in batches and writes one outcome per record.
+     * @param in newline-delimited JSON PatchBankDetailDTO records
+     * @param results opens the stream the newline-delimited outcomes are written to
+     * @return summary of the import
+     * @throws TooManyRequestsException If the maximum number of imports is already running
+     * @throws IOException If reading the input or writing the outcomes fails
+     */
+    public BulkPatchResultDTO.Summary importPatches(InputStream in, ResultStream results) throws IOException {
+        if (!runningImports.tryAcquire()) {
+            throw new TooManyRequestsException("too many bulk imports are running, retry later");
+        }
+        try {
+            return runImport(in, results.open());
+        } finally {
+            runningImports.release();
+        }
+    }
+
+    private BulkPatchResultDTO.Summary runImport(InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Batch batch = new Batch();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(lineNumber, line);
+                if (batch.size() >= batchSize) {
+                    batch.apply(generator);
+                }
+            }
+            batch.apply(generator);
+
+            long elapsedNanos = System.nanoTime() - start;
+            BulkPatchResultDTO.Summary summary = BulkPatchResultDTO.Summary.builder()
+                    .records(batch.succeeded + batch.failed)
+                    .succeeded(batch.succeeded)
+                    .failed(batch.failed)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .recordsPerSecond(elapsedNanos == 0 ? 0 : (batch.succeeded + batch.failed) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos)
+                    .build();
+            write(generator, BulkPatchResultDTO.builder().summary(summary).build());
+            generator.flush();
+            log.info("Bulk import applied {} bank detail patches, {} failed, in {} ms ({} records/sec)",
+                    summary.getSucceeded(), summary.getFailed(), summary.getElapsedMillis(), summary.getRecordsPerSecond());
+            return summary;
+        }
+    }
+
+    private static void write(JsonGenerator generator, BulkPatchResultDTO result) throws IOException {
+        generator.writeObject(result);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * The records read since the last batch was applied, with the outcomes of the invalid ones.
+     */
+    private final class Batch {
+        private final List<BulkPatchResultDTO> results = new ArrayList<>();
+        private final List<PatchBankDetailDTO> patches = new ArrayList<>();
+        private final List<BulkPatchResultDTO> pendingResults = new ArrayList<>();
+        private long succeeded;
+        private long failed;
+
+        private void add(long lineNumber, String line) {
+            PatchBankDetailDTO patch;
+            try {
+                patch = patchReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                results.add(failure(lineNumber, null, "invalid JSON: " + e.getOriginalMessage()));
+                return;
+            }
+            // a null line is valid JSON but no patch, the validator would reject it for the whole stream
+            if (patch == null) {
+                results.add(failure(lineNumber, null, "invalid JSON: expected an object"));
+                return;
+            }
+            Set<ConstraintViolation<PatchBankDetailDTO>> violations = validator.validate(patch);
+            if (!violations.isEmpty()) {
+                String error = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                results.add(failure(lineNumber, patch.getPersonId(), error));
+                return;
+            }
+            BulkPatchResultDTO result = BulkPatchResultDTO.builder().line(lineNumber).personId(patch.getPersonId()).build();
+            patches.add(patch);
+            pendingResults.add(result);
+            results.add(result);
+        }
+
+        private int size() {
+            return results.size();
+        }
+
+        private void apply(JsonGenerator generator) throws IOException {
+            if (!patches.isEmpty()) {
+                List<Long> versions = null;
+                try {
+                    versions = customerManagementService.patchBankDetails(patches);
+                } catch (InternalException e) {
+                    // the service has logged the cause, every patch of the batch is reported as failed
+                }
+                for (int i = 0; i < pendingResults.size(); i++) {
+                    BulkPatchResultDTO result = pendingResults.get(i);
+                    Long version = versions == null ? null : versions.get(i);
+                    if (version != null) {
+                        result.setStatus("SUCCESS");
+                        result.setVersion(version);
+                    } else {
+                        result.setStatus("FAIL");
+                        result.setError(versions == null ? "Internal Server Error" : "invalid person id");
+                    }
+                }
+            }
+            for (BulkPatchResultDTO result : results) {
+                if ("SUCCESS".equals(result.getStatus())) {
+                    succeeded++;
+                } else {
+                    failed++;
+                }
+                write(generator, result);
+            }
+            generator.flush();
+            results.clear();
+            patches.clear();
+            pendingResults.clear();
+        }
+
+        private BulkPatchResultDTO failure(long lineNumber, String personId, String error) {
+            return BulkPatchResultDTO.builder().line(lineNumber).personId(personId).status("FAIL").error(error).build();
+        }
+    }
+}
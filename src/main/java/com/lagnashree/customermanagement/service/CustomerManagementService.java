@@ -1,15 +1,29 @@
 package com.lagnashree.customermanagement.service;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
 import com.lagnashree.customermanagement.dto.*;
+import com.lagnashree.customermanagement.exception.CustomerNotFoundException;
 import com.lagnashree.customermanagement.exception.InternalException;
 import com.lagnashree.customermanagement.exception.InvalidInputException;
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
 import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.PatchedCustomer;
+import com.lagnashree.customermanagement.repository.CustomerSearchIndex;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.repository.PhoneNumberSearchResult;
+import com.lagnashree.customermanagement.repository.SearchResult;
+import com.lagnashree.customermanagement.model.Customer;
+import com.lagnashree.customermanagement.model.PhoneNumber;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 @Service
@@ -17,7 +31,15 @@ import java.util.List;
 @Slf4j()
 public class CustomerManagementService {
 
+    private static final Map<String, CustomerView> VIEWS_BY_REQUEST_TYPE = Map.of(
+            CustomerView.PERSONAL_DETAILS.getRequestType(), CustomerView.PERSONAL_DETAILS,
+            CustomerView.BANK_DETAILS.getRequestType(), CustomerView.BANK_DETAILS,
+            CustomerView.QUALIFICATIONS.getRequestType(), CustomerView.QUALIFICATIONS,
+            CustomerView.FULL_PROFILE.getRequestType(), CustomerView.FULL_PROFILE);
+    private static final int MAX_SEARCH_PAGE_SIZE = 1000;
+
     private final CustomerManagementRepository customerManagementRepository;
+    private final CustomerViewCache customerViewCache;
     /**
      * This function get the customer personal details of a given personId.
      * @param String, personId of the customer
@@ -27,26 +49,19 @@ public class CustomerManagementService {
      */
     public PersonalDetailDTO getCustomerPersonalDetails(String personId) throws InvalidInputException, InternalException  {
         try {
-            JSONObject customerObj = customerManagementRepository.readCustomerData();
-            JSONArray phoneArray = (JSONArray) customerObj.get("phone");
-            if(!personId.equals(customerObj.get("personId"))) {
-                log.error(String.format("Invalid person id: %s", personId));
-                throw new InvalidInputException("invalid person id");
+            PersonalDetailDTO cached = customerViewCache.get(personId, CustomerView.PERSONAL_DETAILS, PersonalDetailDTO.class);
+            if (cached != null) {
+                return cached;
+            }
+            long stamp = customerViewCache.stamp(personId);
+            Customer customerObj = customerManagementRepository.findByPersonId(personId, CustomerView.PERSONAL_DETAILS);
+            if(customerObj == null) {
+                log.debug("Invalid person id: {}", personId);
+                throw new CustomerNotFoundException();
             }
             else {
-                PersonalDetailDTO personalDTO = PersonalDetailDTO.builder()
-                        .name( customerObj.get("firstName") + " " + (String) customerObj.get("lastName"))
-                        .personId((String) customerObj.get("personId"))
-                        .dob((String) customerObj.get("dob"))
-                        .address(PersonalDetailDTO.Address.builder()
-                                .street((String) customerObj.get("streetName"))
-                                .houseNumber((String) customerObj.get("houseNumber"))
-                                .city((String) customerObj.get("city"))
-                                .country((String) customerObj.get("country"))
-                                .countryCode((String) customerObj.get("countryCode")).build())
-                        .contact(generateContacts(phoneArray))
-                        .build();
-
+                PersonalDetailDTO personalDTO = buildPersonalDetails(customerObj);
+                customerViewCache.put(personId, CustomerView.PERSONAL_DETAILS, personalDTO, stamp);
                 return personalDTO;
             }
         }
@@ -54,29 +69,89 @@ public class CustomerManagementService {
             throw exp;
         }
         catch(Exception e){
-            log.error(String.format("Exception in getCustomerPersonalDetails function: %s", e.getMessage()), e);
+            log.error("Exception in getCustomerPersonalDetails function: {}", e.getMessage(), e);
             throw new InternalException("Internal Server Error");
         }
     }
 
     /**
-     * This function process JSONArray object that contains phone numbers, idenitfy the mobile phone number and returns them  .
-     * @parameter JSONArray object which contains phone numbers of a customer.
+     * This function builds the personal details view of a customer record.
+     * @parameter Customer record which contains at least the fields of the personal details view.
+     * @return PersonalDetailDTO
+     */
+    private static PersonalDetailDTO buildPersonalDetails(Customer customerObj) {
+        PersonalDetailDTO personalDTO = PersonalDetailDTO.builder()
+                .name(customerObj.getFirstName() + " " + customerObj.getLastName())
+                .personId(customerObj.getPersonId())
+                .dob(customerObj.getDob())
+                .address(PersonalDetailDTO.Address.builder()
+                        .street(customerObj.getStreetName())
+                        .houseNumber(customerObj.getHouseNumber())
+                        .city(customerObj.getCity())
+                        .country(customerObj.getCountry())
+                        .countryCode(customerObj.getCountryCode()).build())
+                .contact(generateContacts(customerObj.getPhone()))
+                .build();
+        return personalDTO;
+    }
+
+    /**
+     * This function builds the bank details view of a customer record.
+     * @parameter Customer record which contains at least the fields of the bank details view.
+     * @return BankDetailDTO
+     */
+    private static BankDetailDTO buildBankDetails(Customer customerObj) {
+        Customer.Bank bank = customerObj.getBank();
+        BankDetailDTO bankDetailDTO = BankDetailDTO.builder()
+                .name(customerObj.getFirstName() + " " + customerObj.getLastName())
+                .personId(customerObj.getPersonId())
+                .bank(BankDetailDTO.Bank.builder()
+                        .name(bank.getBankName())
+                        .accountNumber(bank.getAccountNumber())
+                        .branchCode(bank.getBranch()).build())
+                .card(generateCards(bank)).build();
+        return bankDetailDTO;
+    }
+
+    /**
+     * This function builds the qualifications view of a customer record.
+     * @parameter Customer record which contains at least the fields of the qualifications view.
+     * @return QualificationDTO
+     */
+    private static QualificationDTO buildQualifications(Customer customerObj) {
+        Customer.School school = customerObj.getEducation().getSchool();
+        Customer.College college = customerObj.getEducation().getCollege();
+        QualificationDTO qualificationDTO = QualificationDTO.builder()
+                .name(customerObj.getFirstName() + " " + customerObj.getLastName())
+                .qualifications(QualificationDTO.Qualifications.builder()
+                        .school(QualificationDTO.School.builder()
+                                .name(school.getName())
+                                .address(school.getAddress())
+                                .build())
+                        .college(QualificationDTO.College.builder()
+                                .name(college.getName())
+                                .address(college.getAddress())
+                                .degree(college.getDegree())
+                                .build())
+                        .build()).build();
+        return qualificationDTO;
+    }
+
+    /**
+     * This function returns the phone numbers of a customer that carry a calling code as contacts. The numbers have
+     * been split into calling code and national number when the record was bound, numbers without one are left out.
+     * @parameter List of PhoneNumber which contains phone numbers of a customer.
      * @return List of PersonalDetailDTO.Contact
      */
-    private static List<PersonalDetailDTO.Contact> generateContacts(JSONArray phoneArray) {
+    private static List<PersonalDetailDTO.Contact> generateContacts(List<PhoneNumber> phoneNumbers) {
 
         List<PersonalDetailDTO.Contact> contactList = new ArrayList<>();
 
-        for (int i = 0; i < phoneArray.size(); i++) {
-            String phoneNumber = (String) phoneArray.get(i);
-               if (phoneNumber.startsWith("+")) {
-                   int splitIndex=3;
-                   String countryCode = phoneNumber.substring(0, splitIndex);
-                   String numberWithoutCountryCode = phoneNumber.substring(splitIndex);
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+               if (phoneNumber.isInternational()) {
                    PersonalDetailDTO.Contact contact = PersonalDetailDTO.Contact.builder()
-                           .code(countryCode)
-                           .number(numberWithoutCountryCode)
+                           .code(phoneNumber.getCountryCode())
+                           .number(phoneNumber.getNationalNumber())
                            .build();
                    contactList.add(contact);
                 }
@@ -94,34 +169,19 @@ public class CustomerManagementService {
      */
     public BankDetailDTO getCustomerBankDetails(String personId) throws InvalidInputException, InternalException {
         try{
-            JSONObject customerObj = customerManagementRepository.readCustomerData();
-            JSONObject bankObject = (JSONObject) customerObj.get("bank");
-            JSONObject debitCardObject = (JSONObject) bankObject.get("debitCard");
-            JSONObject creditcardObject = (JSONObject) bankObject.get("creditCard");
-            if(!personId.equals(customerObj.get("personId"))) {
-                log.error(String.format("Invalid person id: %s", personId));
-                throw new InvalidInputException("invalid person id");
+            BankDetailDTO cached = customerViewCache.get(personId, CustomerView.BANK_DETAILS, BankDetailDTO.class);
+            if (cached != null) {
+                return cached;
+            }
+            long stamp = customerViewCache.stamp(personId);
+            Customer customerObj = customerManagementRepository.findByPersonId(personId, CustomerView.BANK_DETAILS);
+            if(customerObj == null) {
+                log.debug("Invalid person id: {}", personId);
+                throw new CustomerNotFoundException();
             }
             else {
-                BankDetailDTO bankDetailDTO = BankDetailDTO.builder()
-                        .name((String) customerObj.get("firstName") + " " + (String) customerObj.get("lastName"))
-                        .personId((String) customerObj.get("personId"))
-                        .bank(BankDetailDTO.Bank.builder()
-                                .name((String) bankObject.get("bankName"))
-                                .accountNumber((String) bankObject.get("accountNumber"))
-                                .branchCode((String) bankObject.get("branch")).build())
-                        .card(List.of(
-                                BankDetailDTO.Card.builder()
-                                        .cardType("Credit")
-                                        .cardNumber((String) creditcardObject.get("number"))
-                                        .paymentNetwork((String) creditcardObject.get("paymentNetwork"))
-                                        .build(),
-                                BankDetailDTO.Card.builder()
-                                        .cardType("Debit")
-                                        .cardNumber((String) debitCardObject.get("number"))
-                                        .paymentNetwork((String) debitCardObject.get("paymentNetwork"))
-                                        .build()
-                        )).build();
+                BankDetailDTO bankDetailDTO = buildBankDetails(customerObj);
+                customerViewCache.put(personId, CustomerView.BANK_DETAILS, bankDetailDTO, stamp);
                 return bankDetailDTO;
             }
         }
@@ -129,12 +189,39 @@ public class CustomerManagementService {
             throw exp;
         }
         catch(Exception e){
-            log.error(String.format("Exception in getCustomerBankDetails function: %s", e.getMessage()), e);
+            log.error("Exception in getCustomerBankDetails function: {}", e.getMessage(), e);
             throw new InternalException("Internal Server Error");
         }
     }
 
 
+    /**
+     * This function process the bank details and returns its credit cards followed by its debit card.
+     * @parameter Customer.Bank which contains bank details of a customer.
+     * @return List of BankDetailDTO.Card
+     */
+    private static List<BankDetailDTO.Card> generateCards(Customer.Bank bank) {
+
+        List<BankDetailDTO.Card> cardList = new ArrayList<>();
+        if (bank.getCreditCard() != null) {
+            for (Customer.Card creditCard : bank.getCreditCard()) {
+                cardList.add(generateCard("Credit", creditCard));
+            }
+        }
+        if (bank.getDebitCard() != null) {
+            cardList.add(generateCard("Debit", bank.getDebitCard()));
+        }
+        return cardList;
+    }
+
+    private static BankDetailDTO.Card generateCard(String cardType, Customer.Card card) {
+        return BankDetailDTO.Card.builder()
+                .cardType(cardType)
+                .cardNumber(card.getNumber())
+                .paymentNetwork(card.getPaymentNetwork())
+                .build();
+    }
+
     /**
      * This function get the customer qualification details of a given personId.
      * @param String, personId of the customer
@@ -144,29 +231,19 @@ public class CustomerManagementService {
      */
    public QualificationDTO getCustomerQualificationsDetails(String personId) throws InvalidInputException, InternalException {
        try{
-           JSONObject customerObj = customerManagementRepository.readCustomerData();
-           JSONObject educationObject = (JSONObject) customerObj.get("education");
-           JSONObject schoolObject = (JSONObject) educationObject.get("school");
-           JSONObject collageObject = (JSONObject) educationObject.get("collage");
-           if(!personId.equals(customerObj.get("personId"))) {
-               log.error(String.format("Invalid person id: %s", personId));
-               throw new InvalidInputException("invalid person id");
+           QualificationDTO cached = customerViewCache.get(personId, CustomerView.QUALIFICATIONS, QualificationDTO.class);
+           if (cached != null) {
+               return cached;
+           }
+           long stamp = customerViewCache.stamp(personId);
+           Customer customerObj = customerManagementRepository.findByPersonId(personId, CustomerView.QUALIFICATIONS);
+           if(customerObj == null) {
+               log.debug("Invalid person id: {}", personId);
+               throw new CustomerNotFoundException();
            }
            else {
-               QualificationDTO qualificationDTO = QualificationDTO.builder()
-                       .name(customerObj.get("firstName") + " " + customerObj.get("lastName"))
-                       .qualifications(QualificationDTO.Qualifications.builder()
-                               .school(QualificationDTO.School.builder()
-                                       .name((String) schoolObject.get("name"))
-                                       .address((String) schoolObject.get("address"))
-                                       .build())
-                               .college(QualificationDTO.College.builder()
-                                       .name((String) collageObject.get("name"))
-                                       .address((String) collageObject.get("address"))
-                                       .degree((String) collageObject.get("degree"))
-                                       .build())
-                               .build()).build();
-
+               QualificationDTO qualificationDTO = buildQualifications(customerObj);
+               customerViewCache.put(personId, CustomerView.QUALIFICATIONS, qualificationDTO, stamp);
                return qualificationDTO;
            }
        }
@@ -174,118 +251,499 @@ public class CustomerManagementService {
            throw exp;
        }
        catch(Exception e){
-           log.error(String.format("Exception in getCustomerQualificationsDetails function: %s", e.getMessage()), e);
+           log.error("Exception in getCustomerQualificationsDetails function: {}", e.getMessage(), e);
            throw new InternalException("Internal Server Error");
        }
     }
 
     /**
-     * This function returns merged customer data based on the input and exsiting customer data.
-     * @param PatchBankDetailDTO, data to be merged on exisiting customer data
-     * @return PersonalDetailDTO object which contains personal details of a customer.
+     * This function get the personal, bank and qualification details of a given personId from a single fetch of the
+     * customer record.
+     * @param String, personId of the customer
+     * @return FullProfileDTO object which contains the personal, bank and qualification details of a customer.
      * @throws InvalidInputException If the provided personId does not match any exsiting data
      * @throws InternalException when there any other king of error while parsing etc.
      */
-    public CustomerDTO patchBankDetails(PatchBankDetailDTO pathchBankDetailDTO) throws InvalidInputException, InternalException {
+    public FullProfileDTO getCustomerFullProfile(String personId) throws InvalidInputException, InternalException {
         try{
-            JSONObject customerObj = customerManagementRepository.readCustomerData();
-            if(!pathchBankDetailDTO.getPersonId().equals((String) customerObj.get("personId"))) {
-                log.error(String.format("Invalid person id: %s", pathchBankDetailDTO.getPersonId()));
-                throw new InvalidInputException("invalid person id");
+            FullProfileDTO cached = customerViewCache.get(personId, CustomerView.FULL_PROFILE, FullProfileDTO.class);
+            if (cached != null) {
+                return cached;
+            }
+            long stamp = customerViewCache.stamp(personId);
+            Customer customerObj = customerManagementRepository.findByPersonId(personId, CustomerView.FULL_PROFILE);
+            if(customerObj == null) {
+                log.debug("Invalid person id: {}", personId);
+                throw new CustomerNotFoundException();
             }
             else {
-                JSONObject educationObject = (JSONObject) customerObj.get("education");
-                JSONObject schoolObject = (JSONObject) educationObject.get("school");
-                JSONObject collageObject = (JSONObject) educationObject.get("collage");
-                JSONArray phoneArray = (JSONArray) customerObj.get("phone");
-                JSONObject bankObject = (JSONObject) customerObj.get("bank");
-                CustomerDTO customerDTO = CustomerDTO.builder()
-                        .firstName((String) customerObj.get("firstName"))
-                        .lastName((String) customerObj.get("lastName"))
-                        .personId((String) customerObj.get("personId"))
-                        .dob((String) customerObj.get("dob"))
-                        .streetName((String) customerObj.get("streetName"))
-                        .houseNumber((String) customerObj.get("houseNumber"))
-                        .city((String) customerObj.get("city"))
-                        .country((String) customerObj.get("country"))
-                        .countryCode((String) customerObj.get("countryCode"))
-                        .phone(generatePhonenumbers(phoneArray))
-                        .bank(generateBankDetails(pathchBankDetailDTO))
-                        .education(CustomerDTO.Education.builder()
-                                .school(CustomerDTO.School.builder()
-                                        .name((String) schoolObject.get("name"))
-                                        .address((String) schoolObject.get("address"))
-                                        .build())
-                                .college(CustomerDTO.College.builder()
-                                        .name((String) collageObject.get("name"))
-                                        .address((String) collageObject.get("address"))
-                                        .degree((String) collageObject.get("degree"))
-                                        .build())
-                                .build()).build();
-
-                return customerDTO;
+                FullProfileDTO fullProfileDTO = buildFullProfile(customerObj);
+                customerViewCache.put(personId, CustomerView.FULL_PROFILE, fullProfileDTO, stamp);
+                return fullProfileDTO;
             }
         }
         catch(InvalidInputException exp){
             throw exp;
         }
         catch(Exception e){
-            log.error(String.format("Exception in patchBankDetails function: %s", e.getMessage()), e);
+            log.error("Exception in getCustomerFullProfile function: {}", e.getMessage(), e);
             throw new InternalException("Internal Server Error");
         }
     }
 
     /**
-     * This function process JSONArray object that contains phone numbers, and convert them into List of String and return  .
-     * @parameter JSONArray object which contains phone numbers of a customer.
-     * @return List of String
+     * This function builds the personal, bank and qualifications views of a customer record.
+     * @parameter Customer record which contains at least the fields of the full profile view.
+     * @return FullProfileDTO
+     */
+    private static FullProfileDTO buildFullProfile(Customer customerObj) {
+        return FullProfileDTO.builder()
+                .personalDetails(buildPersonalDetails(customerObj))
+                .bankDetails(buildBankDetails(customerObj))
+                .qualifications(buildQualifications(customerObj))
+                .build();
+    }
+
+    /**
+     * This function resolves many (personId, requestType) lookups in one pass. Items of the same customer are grouped,
+     * so every customer record is fetched at most once, and every item gets its own result or error.
+     * @param BatchDetailRequestDTO, the lookups to resolve
+     * @return BatchDetailResponseDTO object with one result per item, in the order of the items.
+     */
+    public BatchDetailResponseDTO getCustomerDetails(BatchDetailRequestDTO batchDetailRequestDTO) {
+        List<BatchDetailRequestDTO.Item> items = batchDetailRequestDTO.getItems();
+        BatchDetailResponseDTO.Result[] results = new BatchDetailResponseDTO.Result[items.size()];
+        Map<String, List<Integer>> itemsByPersonId = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchDetailRequestDTO.Item item = items.get(i);
+            if (VIEWS_BY_REQUEST_TYPE.containsKey(item.getRequestType())) {
+                itemsByPersonId.computeIfAbsent(item.getPersonId(), personId -> new ArrayList<>()).add(i);
+            } else {
+                results[i] = failedResult(item, "invalid requestType value");
+            }
+        }
+        itemsByPersonId.forEach((personId, indexes) -> resolveCustomerItems(personId, indexes, items, results));
+        return BatchDetailResponseDTO.builder().results(Arrays.asList(results)).build();
+    }
+
+    /**
+     * This function resolves the batch items of one customer. Cached views are used as they are, the other views are
+     * built from a single fetch of the customer record.
      */
-    private static List<String> generatePhonenumbers(JSONArray phoneArray) {
+    private void resolveCustomerItems(String personId, List<Integer> indexes, List<BatchDetailRequestDTO.Item> items,
+                                      BatchDetailResponseDTO.Result[] results) {
+        Map<CustomerView, Object> views = new EnumMap<>(CustomerView.class);
+        Map<CustomerView, String> errors = new EnumMap<>(CustomerView.class);
+        List<CustomerView> missing = new ArrayList<>();
+        for (int index : indexes) {
+            CustomerView view = VIEWS_BY_REQUEST_TYPE.get(items.get(index).getRequestType());
+            if (!views.containsKey(view) && !missing.contains(view)) {
+                Object cached = customerViewCache.get(personId, view, Object.class);
+                if (cached != null) {
+                    views.put(view, cached);
+                } else {
+                    missing.add(view);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = customerViewCache.stamp(personId);
+            Customer customerObj = customerManagementRepository.findByPersonId(personId,
+                    missing.size() == 1 ? missing.get(0) : CustomerView.CUSTOMER);
+            if (customerObj == null) {
+                log.debug("Invalid person id: {}", personId);
+            }
+            for (CustomerView view : missing) {
+                if (customerObj == null) {
+                    errors.put(view, "invalid person id");
+                    continue;
+                }
+                try {
+                    Object details = buildView(view, customerObj);
+                    customerViewCache.put(personId, view, details, stamp);
+                    views.put(view, details);
+                } catch (Exception e) {
+                    log.error("Exception while building {} of personId={}: {}", view.getRequestType(), personId, e.getMessage(), e);
+                    errors.put(view, "Internal Server Error");
+                }
+            }
+        }
+        for (int index : indexes) {
+            BatchDetailRequestDTO.Item item = items.get(index);
+            CustomerView view = VIEWS_BY_REQUEST_TYPE.get(item.getRequestType());
+            results[index] = views.containsKey(view)
+                    ? BatchDetailResponseDTO.Result.builder()
+                            .personId(item.getPersonId())
+                            .requestType(item.getRequestType())
+                            .status("SUCCESS")
+                            .details(views.get(view)).build()
+                    : failedResult(item, errors.get(view));
+        }
+    }
+
+    private static Object buildView(CustomerView view, Customer customerObj) {
+        switch (view) {
+            case PERSONAL_DETAILS:
+                return buildPersonalDetails(customerObj);
+            case BANK_DETAILS:
+                return buildBankDetails(customerObj);
+            case QUALIFICATIONS:
+                return buildQualifications(customerObj);
+            case FULL_PROFILE:
+                return buildFullProfile(customerObj);
+            case CUSTOMER:
+                return buildCustomer(customerObj);
+            default:
+                throw new IllegalArgumentException("no response view for " + view);
+        }
+    }
 
-        List<String> contactList = new ArrayList<>();
+    private static BatchDetailResponseDTO.Result failedResult(BatchDetailRequestDTO.Item item, String error) {
+        return BatchDetailResponseDTO.Result.builder()
+                .personId(item.getPersonId())
+                .requestType(item.getRequestType())
+                .status("FAIL")
+                .error(error).build();
+    }
 
-        for (int i = 0; i < phoneArray.size(); i++) {
-            String phoneNumber = (String) phoneArray.get(i);
-            contactList.add(phoneNumber);
+    /**
+     * This function returns the view of an export request type, which is any view of the GET endpoint or the whole customer.
+     * @param String, requestType of the export
+     * @return CustomerView of the request type
+     * @throws InvalidInputException If the request type is not known
+     */
+    public CustomerView getExportView(String requestType) throws InvalidInputException {
+        if (CustomerView.CUSTOMER.getRequestType().equals(requestType)) {
+            return CustomerView.CUSTOMER;
         }
-        return contactList;
+        CustomerView view = VIEWS_BY_REQUEST_TYPE.get(requestType);
+        if (view == null) {
+            log.error("requestType is not valid: {}", requestType);
+            throw new InvalidInputException("invalid requestType value");
+        }
+        return view;
     }
 
     /**
-     * This function process JSONArray object that contains phone numbers, and convert them into List of String and return  .
-     * @parameter PatchBankDetailDTO object which contains phone numbers of a customer.
-     * @return CustomerDTO.Bank
+     * This function builds the given view of every customer whose fields match all filters and passes it to the
+     * consumer, one customer at a time, so memory use does not depend on the number of customers.
+     * @param CustomerView, view to build for every customer
+     * @param Map, top-level customer fields and the values they must have, compared ignoring case
+     * @param Consumer, receives the view of every matching customer
+     * @throws InternalException If a customer record can not be mapped
      */
-    private static CustomerDTO.Bank generateBankDetails(PatchBankDetailDTO pathchBankDetailDTO) {
+    public void exportCustomerDetails(CustomerView view, Map<String, String> filters, Consumer<Object> consumer) throws InternalException {
+        customerManagementRepository.forEachCustomer(customerObj -> {
+            for (Map.Entry<String, String> filter : filters.entrySet()) {
+                if (!filter.getValue().equalsIgnoreCase(filterValue(customerObj, filter.getKey()))) {
+                    return;
+                }
+            }
+            Object details;
+            try {
+                details = buildView(view, customerObj);
+            } catch (Exception e) {
+                log.error("Exception while exporting personId={}: {}", customerObj.getPersonId(), e.getMessage(), e);
+                throw new InternalException("Internal Server Error");
+            }
+            consumer.accept(details);
+        });
+    }
 
-        CustomerDTO.Bank bankDetais= CustomerDTO.Bank.builder()
-                .bankName(pathchBankDetailDTO.getNewBankDetails().getName())
-                .branch(pathchBankDetailDTO.getNewBankDetails().getBranch())
-                .accountNumber(pathchBankDetailDTO.getNewBankDetails().getAccount())
-                .debitCard(CustomerDTO.DebitCard.builder()
-                        .number(pathchBankDetailDTO.getNewBankDetails().getDebitCard().getNumber())
-                        .paymentNetwork(pathchBankDetailDTO.getNewBankDetails().getDebitCard().getPaymentNetwork()).build())
-                .creditCard(generateCreditCards(pathchBankDetailDTO.getCreditCards())).build();
+    private static String filterValue(Customer customerObj, String field) {
+        switch (field) {
+            case "country":
+                return customerObj.getCountry();
+            case "countryCode":
+                return customerObj.getCountryCode();
+            case "city":
+                return customerObj.getCity();
+            default:
+                throw new IllegalArgumentException("unknown export filter " + field);
+        }
+    }
+
+    /**
+     * This function returns one page of the customers matching the given values of indexed fields. Matches are found
+     * in the search index, only the customers of the page are read to build their views.
+     * @param Map, values to look for by field, a customer matches a field if it holds any of its values
+     * @param String, match mode, all if a customer has to match every field, any if one field is enough
+     * @param String, requestType of the views to return
+     * @param int, page to return, starting at 0
+     * @param int, number of customers per page
+     * @return SearchResultDTO with the number of matches and the views of the page, in snapshot order
+     * @throws InvalidInputException If no value is given, or match, requestType, page or size is not valid
+     */
+    public SearchResultDTO searchCustomers(Map<CustomerSearchIndex.Field, List<String>> criteria, String match,
+                                           String requestType, int page, int size) throws InvalidInputException {
+        if (criteria.values().stream().allMatch(values -> values == null || values.isEmpty())) {
+            throw new InvalidInputException("at least one search value is required");
+        }
+        if (!"all".equals(match) && !"any".equals(match)) {
+            log.error("match is not valid: {}", match);
+            throw new InvalidInputException("invalid match value");
+        }
+        if (!VIEWS_BY_REQUEST_TYPE.containsKey(requestType)) {
+            log.error("requestType is not valid: {}", requestType);
+            throw new InvalidInputException("invalid requestType value");
+        }
+        if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE || (long) page * size > Integer.MAX_VALUE) {
+            throw new InvalidInputException("invalid page or size value");
+        }
+        SearchResult searchResult = customerManagementRepository.search(criteria, "all".equals(match), page * size, size);
+        List<BatchDetailRequestDTO.Item> items = new ArrayList<>(searchResult.getPersonIds().size());
+        for (String personId : searchResult.getPersonIds()) {
+            items.add(BatchDetailRequestDTO.Item.builder().personId(personId).requestType(requestType).build());
+        }
+        List<Object> results = new ArrayList<>(items.size());
+        for (BatchDetailResponseDTO.Result result : getCustomerDetails(BatchDetailRequestDTO.builder().items(items).build()).getResults()) {
+            // customers of a snapshot replaced since the search are left out of the page
+            if (result.getDetails() != null) {
+                results.add(result.getDetails());
+            }
+        }
+        return SearchResultDTO.builder()
+                .total(searchResult.getTotal())
+                .page(page)
+                .size(size)
+                .results(results).build();
+    }
 
-        return bankDetais;
+    /**
+     * This function returns one page of the customers holding the given phone number, or a phone number starting with
+     * it. The number is normalised like the numbers of the customers, so separators and spaces do not matter. Matches
+     * are found in the phone number index without reading any customer record.
+     * @param String, phone number or prefix of a phone number
+     * @param String, match mode, exact to match the whole number, prefix to match every number starting with it
+     * @param int, page to return, starting at 0
+     * @param int, number of matches per page
+     * @return PhoneNumberSearchResultDTO with the number of matches and the normalised numbers and personIds of the page
+     * @throws InvalidInputException If no phone number is given, or match, page or size is not valid
+     */
+    public PhoneNumberSearchResultDTO searchPhoneNumber(String phoneNumber, String match, int page, int size) throws InvalidInputException {
+        if (phoneNumber == null || phoneNumber.isBlank()) {
+            throw new InvalidInputException("phoneNumber is required");
+        }
+        if (!"exact".equals(match) && !"prefix".equals(match)) {
+            log.error("match is not valid: {}", match);
+            throw new InvalidInputException("invalid match value");
+        }
+        if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE || (long) page * size > Integer.MAX_VALUE) {
+            throw new InvalidInputException("invalid page or size value");
+        }
+        PhoneNumberSearchResult searchResult = customerManagementRepository.searchPhoneNumber(
+                phoneNumber, "prefix".equals(match), page * size, size);
+        List<PhoneNumberSearchResultDTO.Match> results = new ArrayList<>(searchResult.getMatches().size());
+        for (PhoneNumberSearchResult.Match phoneNumberMatch : searchResult.getMatches()) {
+            results.add(PhoneNumberSearchResultDTO.Match.builder()
+                    .phoneNumber(phoneNumberMatch.getPhoneNumber())
+                    .personId(phoneNumberMatch.getPersonId()).build());
+        }
+        return PhoneNumberSearchResultDTO.builder()
+                .total(searchResult.getTotal())
+                .page(page)
+                .size(size)
+                .results(results).build();
     }
 
     /**
-     * This function process JSONArray object that contains phone numbers, and convert them into List of String and return  .
-     * @parameter List of PatchBankDetailDTO.CreditCard
+     * This function builds the whole customer in the layout of the patch response from a customer record.
+     * @parameter Customer record which contains the whole customer.
+     * @return CustomerDTO
+     */
+    private static CustomerDTO buildCustomer(Customer customerObj) {
+        Customer.School school = customerObj.getEducation().getSchool();
+        Customer.College college = customerObj.getEducation().getCollege();
+        Customer.Bank bank = customerObj.getBank();
+        Customer.Card debitCard = bank.getDebitCard();
+        return CustomerDTO.builder()
+                .firstName(customerObj.getFirstName())
+                .lastName(customerObj.getLastName())
+                .personId(customerObj.getPersonId())
+                .dob(customerObj.getDob())
+                .streetName(customerObj.getStreetName())
+                .houseNumber(customerObj.getHouseNumber())
+                .city(customerObj.getCity())
+                .country(customerObj.getCountry())
+                .countryCode(customerObj.getCountryCode())
+                .version(customerObj.getVersion())
+                .phone(generatePhonenumbers(customerObj.getPhone()))
+                .bank(CustomerDTO.Bank.builder()
+                        .bankName(bank.getBankName())
+                        .accountNumber(bank.getAccountNumber())
+                        .branch(bank.getBranch())
+                        .debitCard(debitCard == null ? null : CustomerDTO.DebitCard.builder()
+                                .number(debitCard.getNumber())
+                                .paymentNetwork(debitCard.getPaymentNetwork()).build())
+                        .creditCard(generateCustomerCreditCards(bank.getCreditCard())).build())
+                .education(CustomerDTO.Education.builder()
+                        .school(CustomerDTO.School.builder()
+                                .name(school.getName())
+                                .address(school.getAddress())
+                                .build())
+                        .college(CustomerDTO.College.builder()
+                                .name(college.getName())
+                                .address(college.getAddress())
+                                .degree(college.getDegree())
+                                .build())
+                        .build()).build();
+    }
+
+    /**
+     * This function converts the credit cards of a customer record into the layout of the patch response.
+     * @parameter List of Customer.Card, null if the customer has no credit card
      * @return List of CustomerDTO.CreditCard
      */
-    private static List<CustomerDTO.CreditCard> generateCreditCards(List<PatchBankDetailDTO.CreditCard> creditCardInfo) {
+    private static List<CustomerDTO.CreditCard> generateCustomerCreditCards(List<Customer.Card> creditCards) {
 
-        List<CustomerDTO.CreditCard> creditCardList= new ArrayList<>();
-        for (PatchBankDetailDTO.CreditCard creditCard : creditCardInfo) {
-            CustomerDTO.CreditCard creditCardObj= CustomerDTO.CreditCard.builder()
-                    .number(creditCard.getNumber())
-                    .paymentNetwork(creditCard.getPaymentNetwork()).build();
-            creditCardList.add(creditCardObj);
+        List<CustomerDTO.CreditCard> creditCardList = new ArrayList<>();
+        if (creditCards != null) {
+            for (Customer.Card creditCard : creditCards) {
+                creditCardList.add(CustomerDTO.CreditCard.builder()
+                        .number(creditCard.getNumber())
+                        .paymentNetwork(creditCard.getPaymentNetwork()).build());
+            }
         }
         return creditCardList;
     }
-}
 
+    /**
+     * This function returns the version, ETag and modification time of a customer without building any view, so that
+     * conditional requests for an unchanged customer can be answered without mapping the record.
+     * @param String, personId of the customer
+     * @return CustomerRevision of the customer, or null if the personId is unknown.
+     * @throws InternalException when the record can not be read
+     */
+    public CustomerRevision getCustomerRevision(String personId) throws InternalException {
+        try {
+            return customerManagementRepository.findRevision(personId);
+        }
+        catch(Exception e){
+            log.error("Exception in getCustomerRevision function: {}", e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
+        }
+    }
+
+    /**
+     * This function merges the bank details into the exsiting customer data, persists them and returns the merged data.
+     * The patch is durable in the write-ahead log once this function returns.
+     * @param PatchBankDetailDTO, data to be merged on exisiting customer data
+     * @return PersonalDetailDTO object which contains personal details of a customer.
+     * @throws InvalidInputException If the provided personId does not match any exsiting data
+     * @throws InternalException when there any other king of error while parsing etc.
+     */
+    public CustomerDTO patchBankDetails(PatchBankDetailDTO pathchBankDetailDTO) throws InvalidInputException, InternalException {
+        return patchBankDetails(pathchBankDetailDTO, null);
+    }
+
+    /**
+     * This function merges the bank details into the exsiting customer data if the customer is still at the expected
+     * version, persists them and returns the merged data with its new version.
+     * @param PatchBankDetailDTO, data to be merged on exisiting customer data
+     * @param List of String, ETags of the customer revisions the patch may be based on, null to skip the check
+     * @return CustomerDTO object which contains the merged customer data and the ETag of its new revision.
+     * @throws InvalidInputException If the provided personId does not match any exsiting data
+     * @throws PreconditionFailedException If the customer data has been modified since the expected revision
+     * @throws InternalException when there any other king of error while parsing etc.
+     */
+    public CustomerDTO patchBankDetails(PatchBankDetailDTO pathchBankDetailDTO, List<String> expectedETags) throws InvalidInputException, PreconditionFailedException, InternalException {
+        try{
+            PatchedCustomer patched;
+            customerViewCache.beginInvalidation(pathchBankDetailDTO.getPersonId());
+            try {
+                patched = customerManagementRepository.saveBankDetails(pathchBankDetailDTO.getPersonId(),
+                        generateBankObject(pathchBankDetailDTO), expectedETags);
+            } finally {
+                customerViewCache.endInvalidation(pathchBankDetailDTO.getPersonId());
+            }
+            Customer customerObj = patched != null ? patched.getCustomer() : null;
+            if(customerObj == null) {
+                log.debug("Invalid person id: {}", pathchBankDetailDTO.getPersonId());
+                throw new CustomerNotFoundException();
+            }
+            else {
+                CustomerDTO customerDTO = buildCustomer(customerObj);
+                customerDTO.setEtag(patched.getRevision().getETag());
+                return customerDTO;
+            }
+        }
+        catch(InvalidInputException | PreconditionFailedException exp){
+            throw exp;
+        }
+        catch(Exception e){
+            log.error("Exception in patchBankDetails function: {}", e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
+        }
+    }
+
+    /**
+     * This function merges the bank details of a batch of patches into the exsiting customer data and persists them
+     * with one write-ahead log append. Patches are applied in order, without a version check.
+     * @param List of PatchBankDetailDTO, validated patches to apply
+     * @return List of the new customer versions in the order of the patches, null where the personId is unknown.
+     * @throws InternalException If the batch could not be persisted
+     */
+    public List<Long> patchBankDetails(List<PatchBankDetailDTO> pathchBankDetailDTOs) throws InternalException {
+        List<String> personIds = new ArrayList<>(pathchBankDetailDTOs.size());
+        List<Customer.Bank> bankObjs = new ArrayList<>(pathchBankDetailDTOs.size());
+        for (PatchBankDetailDTO pathchBankDetailDTO : pathchBankDetailDTOs) {
+            personIds.add(pathchBankDetailDTO.getPersonId());
+            bankObjs.add(generateBankObject(pathchBankDetailDTO));
+        }
+        try {
+            List<Customer> customerObjs;
+            personIds.forEach(customerViewCache::beginInvalidation);
+            try {
+                customerObjs = customerManagementRepository.saveBankDetails(personIds, bankObjs);
+            } finally {
+                personIds.forEach(customerViewCache::endInvalidation);
+            }
+            List<Long> versions = new ArrayList<>(customerObjs.size());
+            for (Customer customerObj : customerObjs) {
+                versions.add(customerObj == null ? null : customerObj.getVersion());
+            }
+            return versions;
+        }
+        catch(Exception e){
+            log.error("Exception in patchBankDetails function for a batch of {} patches: {}", personIds.size(), e.getMessage(), e);
+            throw new InternalException("Internal Server Error");
+        }
+    }
+
+    /**
+     * This function copies the phone numbers of a customer, as written in the customer data file, into a List of String and return  .
+     * @parameter List of PhoneNumber which contains phone numbers of a customer.
+     * @return List of String
+     */
+    private static List<String> generatePhonenumbers(List<PhoneNumber> phoneNumbers) {
 
+        List<String> contactList = new ArrayList<>(phoneNumbers.size());
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            contactList.add(phoneNumber.getRaw());
+        }
+        return contactList;
+    }
+
+    /**
+     * This function converts the patched bank details into the bank details of a customer record.
+     * @parameter PatchBankDetailDTO object which contains the new bank details of a customer.
+     * @return Customer.Bank
+     */
+    private static Customer.Bank generateBankObject(PatchBankDetailDTO pathchBankDetailDTO) {
+
+        List<Customer.Card> creditCards = new ArrayList<>();
+        for (PatchBankDetailDTO.CreditCard creditCard : pathchBankDetailDTO.getCreditCards()) {
+            creditCards.add(Customer.Card.builder()
+                    .number(creditCard.getNumber())
+                    .paymentNetwork(creditCard.getPaymentNetwork()).build());
+        }
+        return Customer.Bank.builder()
+                .bankName(pathchBankDetailDTO.getNewBankDetails().getName())
+                .accountNumber(pathchBankDetailDTO.getNewBankDetails().getAccount())
+                .branch(pathchBankDetailDTO.getNewBankDetails().getBranch())
+                .debitCard(Customer.Card.builder()
+                        .number(pathchBankDetailDTO.getNewBankDetails().getDebitCard().getNumber())
+                        .paymentNetwork(pathchBankDetailDTO.getNewBankDetails().getDebitCard().getPaymentNetwork()).build())
+                .creditCard(creditCards).build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.dto.BatchDetailResponseDTO;
+import com.lagnashree.customermanagement.dto.FullProfileDTO;
+import com.lagnashree.customermanagement.repository.BankDetailWriteAheadLog;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares payload size, encode and decode time of JSON with the CBOR and Smile encodings of the same responses, a
+ * single full profile and a batch of 100 full profiles. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class BinaryFormatBenchmarkTest {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 100_000;
+    private static final int BATCH_SIZE = 100;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void binaryFormats_againstJson() throws Exception {
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16);
+        try {
+            CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+            ReflectionTestUtils.setField(repository, "filePath", "src/test/resources/Person.json");
+            repository.loadCustomerData();
+            CustomerManagementService service = new CustomerManagementService(repository,
+                    new CustomerViewCache(repository, new ObjectMapper(), 16));
+            FullProfileDTO fullProfile = service.getCustomerFullProfile("12345");
+            List<BatchDetailResponseDTO.Result> results = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                results.add(BatchDetailResponseDTO.Result.builder()
+                        .personId("12345")
+                        .requestType("fullProfile")
+                        .status("SUCCESS")
+                        .details(fullProfile)
+                        .build());
+            }
+            BatchDetailResponseDTO batch = BatchDetailResponseDTO.builder().results(results).build();
+
+            ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+            ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+            ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+            for (Object dto : List.of(fullProfile, batch)) {
+                int iterations = dto == batch ? ITERATIONS / BATCH_SIZE : ITERATIONS;
+                Measurement jsonMeasurement = measure(json, dto, iterations);
+                Measurement cborMeasurement = measure(cbor, dto, iterations);
+                Measurement smileMeasurement = measure(smile, dto, iterations);
+                System.out.printf("%s%n  json  : %s%n  cbor  : %s%n  smile : %s%n", dto.getClass().getSimpleName(),
+                        jsonMeasurement, cborMeasurement, smileMeasurement);
+
+                assertEquals(json.readTree(json.writeValueAsBytes(dto)), cbor.readTree(cbor.writeValueAsBytes(dto)));
+                assertEquals(json.readTree(json.writeValueAsBytes(dto)), smile.readTree(smile.writeValueAsBytes(dto)));
+                assertTrue(cborMeasurement.bytes < jsonMeasurement.bytes, "cbor should be smaller than json");
+                assertTrue(smileMeasurement.bytes < jsonMeasurement.bytes, "smile should be smaller than json");
+            }
+        } finally {
+            writeAheadLog.close();
+        }
+    }
+
+    private static Measurement measure(ObjectMapper mapper, Object dto, int iterations) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(dto);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += mapper.writeValueAsBytes(dto).length;
+            sink += mapper.readTree(encoded).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.writeValueAsBytes(dto).length;
+        }
+        long encodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.readTree(encoded).size();
+        }
+        long decodeNanos = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return new Measurement(encoded.length, (double) encodeNanos / iterations, (double) decodeNanos / iterations);
+    }
+
+    private static final class Measurement {
+        private final int bytes;
+        private final double encodeNanos;
+        private final double decodeNanos;
+
+        private Measurement(int bytes, double encodeNanos, double decodeNanos) {
+            this.bytes = bytes;
+            this.encodeNanos = encodeNanos;
+            this.decodeNanos = decodeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%7d bytes %10.1f ns/encode %10.1f ns/decode", bytes, encodeNanos, decodeNanos);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.controller.CustomerManagementController;
+import com.lagnashree.customermanagement.repository.BankDetailWriteAheadLog;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many customers per second the NDJSON export streams, and how much heap it holds on to while doing so.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class ExportBenchmarkTest {
+    private static final int CUSTOMERS = 300_000;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void exportCustomerDetails_recordsPerSecond() throws Exception {
+        String template = Files.readString(Paths.get("src/test/resources/Person.json")).replaceAll("\\s*\n\\s*", "");
+        Path dataFile = dataDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                writer.write(template.replace("\"12345\"", "\"" + i + "\""));
+                writer.newLine();
+            }
+        }
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16);
+        try {
+            CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+            ReflectionTestUtils.setField(repository, "filePath", dataFile.toString());
+            repository.loadCustomerData();
+            ObjectMapper objectMapper = new ObjectMapper();
+            CustomerViewCache cache = new CustomerViewCache(repository, objectMapper, 16);
+            CustomerManagementController controller = new CustomerManagementController(
+                    new CustomerManagementService(repository, cache), cache, objectMapper, null, null);
+
+            export(controller);
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long start = System.nanoTime();
+            CountingOutputStream out = export(controller);
+            long elapsed = System.nanoTime() - start;
+            System.gc();
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+            long recordsPerSecond = CUSTOMERS * 1_000_000_000L / elapsed;
+            System.out.printf("exported %d customers (%d MB) in %d ms, %d records/sec, retained heap delta %d KB%n",
+                    out.lines, out.bytes >> 20, elapsed / 1_000_000, recordsPerSecond, (heapAfter - heapBefore) >> 10);
+            assertEquals(CUSTOMERS, out.lines);
+            assertTrue(recordsPerSecond > 100_000, "export should stream at least 100k records/sec");
+        } finally {
+            writeAheadLog.close();
+        }
+    }
+
+    private static CountingOutputStream export(CustomerManagementController controller) throws Exception {
+        StreamingResponseBody body = controller.exportCustomerDetails("customer", null, null, null, null).getBody();
+        CountingOutputStream out = new CountingOutputStream();
+        body.writeTo(out);
+        return out;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.repository.BankDetailWriteAheadLog;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerSnapshotWriter;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the full profile view with three separate view lookups of the same customer, both read from a binary
+ * snapshot without the view cache. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class FullProfileBenchmarkTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void fullProfile_singleFetch_againstThreeLookups() throws Exception {
+        Path snapshotFile = dataDir.resolve("Person.snapshot");
+        CustomerSnapshotWriter.convert(Paths.get("src/test/resources/Person.json"), snapshotFile);
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16);
+        try {
+            CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+            ReflectionTestUtils.setField(repository, "filePath", snapshotFile.toString());
+            repository.loadCustomerData();
+            // a cache that never hits, so every lookup reads and maps the record
+            CustomerViewCache noCache = new CustomerViewCache(repository, new ObjectMapper(), 1) {
+                @Override
+                public <T> T get(String personId, CustomerView view, Class<T> type) {
+                    return null;
+                }
+
+                @Override
+                public void put(String personId, CustomerView view, Object dto, long stamp) {
+                }
+            };
+            CustomerManagementService service = new CustomerManagementService(repository, noCache);
+
+            double threeLookups = measure(() -> {
+                service.getCustomerPersonalDetails("12345");
+                service.getCustomerBankDetails("12345");
+                service.getCustomerQualificationsDetails("12345");
+            });
+            double fullProfile = measure(() -> service.getCustomerFullProfile("12345"));
+            System.out.printf("three view lookups : %8.1f ns/op%n", threeLookups);
+            System.out.printf("full profile       : %8.1f ns/op%n", fullProfile);
+
+            assertTrue(fullProfile < threeLookups, "the full profile should beat three separate lookups");
+        } finally {
+            writeAheadLog.close();
+        }
+    }
+
+    private static double measure(Operation operation) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        return (double) (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,115 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.lagnashree.customermanagement.logging.RingBufferAsyncAppender;
+import com.lagnashree.customermanagement.logging.SamplingTurboFilter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what the request thread pays for the "Request received" line: formatted with String.format and written
+ * by the appender on the calling thread, as the controllers used to, against a parameterised message handed to the
+ * ring buffer appender, and against the same line sampled one in a hundred. Lines go through the console pattern
+ * into a null stream, so the numbers are the logging work without the terminal. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class LoggingBenchmarkTest {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%15.15t] [%X{correlationId:-}] %-40.40logger{39} : %m%n";
+
+    @Test
+    public void asyncParameterisedLogging_againstSynchronousFormat() throws Exception {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Logger logger = context.getLogger(LoggingBenchmarkTest.class);
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        String[] personIds = new String[1024];
+        for (int i = 0; i < personIds.length; i++) {
+            personIds[i] = String.valueOf(10_000_000 + i);
+        }
+
+        OutputStreamAppender<ILoggingEvent> console = console(context);
+        logger.addAppender(console);
+        double synchronous = measure(i -> logger.info(String.format("Request received for %s with personId=%s",
+                "personalDetails", personIds[i & (personIds.length - 1)])));
+        logger.detachAppender(console);
+
+        RingBufferAsyncAppender async = new RingBufferAsyncAppender();
+        async.setContext(context);
+        async.setName("benchmark");
+        async.addAppender(console);
+        async.start();
+        logger.addAppender(async);
+        double asynchronous = measure(i -> logger.info("Request received for {} with personId={}",
+                "personalDetails", personIds[i & (personIds.length - 1)]));
+
+        SamplingTurboFilter sampling = new SamplingTurboFilter();
+        sampling.setRate(100);
+        sampling.start();
+        context.addTurboFilter(sampling);
+        double sampled = measure(i -> logger.info(SamplingTurboFilter.SAMPLED, "Request received for {} with personId={}",
+                "personalDetails", personIds[i & (personIds.length - 1)]));
+        context.getTurboFilterList().remove(sampling);
+        logger.detachAppender(async);
+        async.stop();
+        console.stop();
+
+        System.out.printf("String.format, appender on the request thread : %8.1f ns/line%n", synchronous);
+        System.out.printf("parameterised, ring buffer appender           : %8.1f ns/line (%d dropped, %d waited)%n",
+                asynchronous, async.getDroppedCount(), async.getBlockedCount());
+        System.out.printf("parameterised, sampled 1 in 100               : %8.1f ns/line (%d sampled out)%n",
+                sampled, sampling.getSampledOutCount());
+        assertTrue(asynchronous < synchronous, "the request thread should not pay for layout and write");
+        assertTrue(sampled < asynchronous, "a sampled out line should cost less than a queued one");
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> console(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+        console.setContext(context);
+        console.setName("console");
+        console.setEncoder(encoder);
+        console.setOutputStream(OutputStream.nullOutputStream());
+        console.start();
+        return console;
+    }
+
+    /**
+     * This function returns the best of several rounds of the average nanoseconds one log call takes on the calling
+     * thread.
+     */
+    private static double measure(Line line) {
+        for (int i = 0; i < WARMUP; i++) {
+            line.log(i);
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                line.log(i);
+            }
+            best = Math.min(best, (double) (System.nanoTime() - start) / ITERATIONS);
+        }
+        return best;
+    }
+
+    private interface Line {
+        void log(int i);
+    }
+}
@@ -0,0 +1,103 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.lagnashree.customermanagement.dto.PersonalDetailDTO;
+import com.lagnashree.customermanagement.model.PhoneNumber;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares building the contacts of a customer by splitting every international number after its third character on
+ * each request with emitting them from numbers parsed once with the calling code trie, and reports what the one-off
+ * trie parse costs. Numbers cover calling codes of one, two and three digits. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class PhoneNumberBenchmarkTest {
+    private static final String[] CALLING_CODES = {"1", "7", "44", "46", "49", "86", "353", "358", "852", "971"};
+    private static final int NUMBERS = 10_000;
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void trieParsedContacts_againstPerRequestSplit() {
+        Random random = new Random(42);
+        List<String> rawNumbers = new ArrayList<>(NUMBERS);
+        List<String> expectedCodes = new ArrayList<>(NUMBERS);
+        for (int i = 0; i < NUMBERS; i++) {
+            String callingCode = CALLING_CODES[random.nextInt(CALLING_CODES.length)];
+            StringBuilder national = new StringBuilder();
+            for (int digit = 0; digit < 9; digit++) {
+                national.append(random.nextInt(10));
+            }
+            if (i % 4 == 0) {
+                rawNumbers.add("0" + national);
+                expectedCodes.add(null);
+            } else {
+                rawNumbers.add("+" + callingCode + (i % 4 == 1 ? " " : "") + national);
+                expectedCodes.add("+" + callingCode);
+            }
+        }
+        List<PhoneNumber> phoneNumbers = new ArrayList<>(NUMBERS);
+        rawNumbers.forEach(raw -> phoneNumbers.add(PhoneNumber.of(raw)));
+
+        int legacyWrong = 0;
+        for (int i = 0; i < NUMBERS; i++) {
+            assertEquals(expectedCodes.get(i), phoneNumbers.get(i).getCountryCode(), rawNumbers.get(i));
+            if (expectedCodes.get(i) != null && !rawNumbers.get(i).substring(0, 3).equals(expectedCodes.get(i))) {
+                legacyWrong++;
+            }
+        }
+
+        double parse = measure(rawNumbers, raw -> PhoneNumber.of(raw).getNationalNumber().length());
+        double legacy = measure(rawNumbers, raw -> {
+            if (!raw.startsWith("+")) {
+                return 0;
+            }
+            PersonalDetailDTO.Contact contact = PersonalDetailDTO.Contact.builder()
+                    .code(raw.substring(0, 3))
+                    .number(raw.substring(3))
+                    .build();
+            return contact.getNumber().length();
+        });
+        double parsed = measure(phoneNumbers, phoneNumber -> {
+            if (!phoneNumber.isInternational()) {
+                return 0;
+            }
+            PersonalDetailDTO.Contact contact = PersonalDetailDTO.Contact.builder()
+                    .code(phoneNumber.getCountryCode())
+                    .number(phoneNumber.getNationalNumber())
+                    .build();
+            return contact.getNumber().length();
+        });
+        System.out.printf("trie parse, once per number at load : %6.1f ns/number%n", parse);
+        System.out.printf("split after 3 chars, per request     : %6.1f ns/number (%d of %d international numbers split wrong)%n",
+                legacy, legacyWrong, NUMBERS - NUMBERS / 4);
+        System.out.printf("contact from parsed number, per request : %6.1f ns/number%n", parsed);
+        assertTrue(legacyWrong > 0, "the fixed split should get one and three digit calling codes wrong");
+    }
+
+    private static <T> double measure(List<T> numbers, ToLongFunction<T> operation) {
+        long sink = 0;
+        for (int round = 0; round < WARMUP; round++) {
+            for (T number : numbers) {
+                sink += operation.applyAsLong(number);
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (T number : numbers) {
+                sink += operation.applyAsLong(number);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return (double) elapsed / ROUNDS / numbers.size();
+    }
+}
@@ -0,0 +1,106 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.lagnashree.customermanagement.repository.CustomerSnapshot;
+import com.lagnashree.customermanagement.repository.CustomerSnapshotWriter;
+import com.lagnashree.customermanagement.repository.PhoneNumberIndex;
+import com.lagnashree.customermanagement.repository.PhoneNumberSearchResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures exact and prefix lookups in the reverse phone number index of a memory-mapped snapshot of one million
+ * customers with two phone numbers each, against finding the number by scanning the snapshot.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class PhoneNumberIndexBenchmarkTest {
+    private static final int CUSTOMERS = 1_000_000;
+    private static final int WARMUP = 100_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int SCANS = 3;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void phoneNumberIndex_againstScan() throws IOException {
+        Path dataFile = dataDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                writer.write("{\"personId\":\"" + i + "\",\"phone\":[\"" + mobile(i) + "\",\"0" + (400000000 + i) + "\"]}\n");
+            }
+        }
+        Path snapshotFile = dataDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(dataFile, snapshotFile);
+        CustomerSnapshot snapshot = CustomerSnapshot.open(snapshotFile);
+
+        long buildStart = System.nanoTime();
+        PhoneNumberIndex index = PhoneNumberIndex.build(snapshot);
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        assertEquals(2 * CUSTOMERS, index.size());
+
+        Random random = new Random(42);
+        String[] queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = mobile(random.nextInt(CUSTOMERS));
+        }
+        double exact = measure(index, queries, false, 0);
+        double prefix = measure(index, queries, true, 4);
+
+        String wanted = mobile(CUSTOMERS - 1).replace(" ", "");
+        long scanStart = System.nanoTime();
+        for (int scan = 0; scan < SCANS; scan++) {
+            String[] found = new String[1];
+            snapshot.forEach(customer -> customer.getPhone().forEach(phoneNumber -> {
+                if (phoneNumber.getNormalized().equals(wanted)) {
+                    found[0] = customer.getPersonId();
+                }
+            }));
+            assertEquals(String.valueOf(CUSTOMERS - 1), found[0]);
+        }
+        double scanMicros = (System.nanoTime() - scanStart) / 1_000.0 / SCANS;
+
+        System.out.printf("index build, %d numbers : %8d ms%n", index.size(), buildMillis);
+        System.out.printf("exact lookup            : %8.2f us%n", exact);
+        System.out.printf("prefix lookup, page 50  : %8.2f us%n", prefix);
+        System.out.printf("scan of the snapshot    : %8.0f us%n", scanMicros);
+        assertTrue(exact < scanMicros);
+    }
+
+    private static String mobile(int i) {
+        return "+46 7" + (i % 10) + " " + String.format("%07d", i);
+    }
+
+    /**
+     * This function returns the average microseconds of one lookup, with prefix lookups dropping the last digits of
+     * the query so that every lookup matches a page of numbers.
+     */
+    private static double measure(PhoneNumberIndex index, String[] queries, boolean prefix, int dropDigits) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += lookup(index, queries[i & (queries.length - 1)], prefix, dropDigits).getTotal();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += lookup(index, queries[i & (queries.length - 1)], prefix, dropDigits).getTotal();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return elapsed / 1_000.0 / ITERATIONS;
+    }
+
+    private static PhoneNumberSearchResult lookup(PhoneNumberIndex index, String query, boolean prefix, int dropDigits) {
+        return index.search(query.substring(0, query.length() - dropDigits), prefix, 0, 50);
+    }
+}
@@ -0,0 +1,143 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.lagnashree.customermanagement.CustomerManagementApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives the same request mix against the application on the Tomcat platform-thread pool, with
+ * {@code spring.threads.virtual.enabled=true} and on the reactive stack. Every fifth request is a bank detail patch that blocks its request
+ * thread until the write-ahead log is fsynced, the rest are lookups.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class RequestHandlingLoadBenchmarkTest {
+    private static final int CUSTOMERS = 10_000;
+    private static final int CLIENTS = 2_000;
+    private static final int REQUESTS_PER_CLIENT = 25;
+    private static final String PATCH = "{\"personId\":\"%d\",\"newBankDetails\":{\"name\":\"XYZ Bank\",\"account\":\"123456789\","
+            + "\"branch\":\"Branch123\",\"debitCard\":{\"number\":\"1234 5678 9101 1122\",\"paymentNetwork\":\"VISA\"}},\"creditCards\":[]}";
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void requestHandling_platformThreads_virtualThreads_reactive() throws Exception {
+        String template = Files.readString(Paths.get("src/test/resources/Person.json")).replaceAll("\\s*\n\\s*", "");
+        Path dataFile = dataDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                writer.write(template.replace("\"12345\"", "\"" + i + "\""));
+                writer.newLine();
+            }
+        }
+
+        Result platform = run(dataFile, "platform", "--spring.threads.virtual.enabled=false");
+        Result virtual = run(dataFile, "virtual", "--spring.threads.virtual.enabled=true");
+        Result reactive = run(dataFile, "reactive", "--spring.main.web-application-type=reactive");
+        System.out.printf("%d clients x %d requests, every 5th a patch%n", CLIENTS, REQUESTS_PER_CLIENT);
+        System.out.printf("platform threads : %s%n", platform);
+        System.out.printf("virtual threads  : %s%n", virtual);
+        System.out.printf("reactive         : %s%n", reactive);
+
+        assertEquals(0, platform.failures);
+        assertEquals(0, virtual.failures);
+        assertEquals(0, reactive.failures);
+    }
+
+    private Result run(Path dataFile, String mode, String modeArgument) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CustomerManagementApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (CLIENTS * 2),
+                modeArgument,
+                "--customer.data.file=" + dataFile,
+                "--customer.data.watch.enabled=false",
+                "--customer.wal.directory=" + dataDir.resolve("wal-" + mode),
+                "--customer.wal.compaction.interval-ms=3600000",
+                "--logging.level.com.lagnashree.customermanagement=WARN");
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clients)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            load(httpClient, clients, port, CLIENTS / 10);
+            return load(httpClient, clients, port, CLIENTS);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result load(HttpClient httpClient, ExecutorService clients, int port, int clientCount) throws Exception {
+        long[] latencies = new long[clientCount * REQUESTS_PER_CLIENT];
+        AtomicLong failures = new AtomicLong();
+        List<Future<?>> running = new ArrayList<>(clientCount);
+        long start = System.nanoTime();
+        for (int c = 0; c < clientCount; c++) {
+            int client = c;
+            running.add(clients.submit(() -> {
+                for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                    int personId = (client * REQUESTS_PER_CLIENT + r) % CUSTOMERS;
+                    HttpRequest request = r % 5 == 4
+                            ? HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/updateDetails/bank"))
+                                    .header("Content-Type", "application/json")
+                                    .method("PATCH", HttpRequest.BodyPublishers.ofString(String.format(PATCH, personId)))
+                                    .build()
+                            : HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                                    + "/getDetails/person/" + personId + "/request/personalDetails")).build();
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                    latencies[client * REQUESTS_PER_CLIENT + r] = System.nanoTime() - requestStart;
+                }
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(latencies.length * 1_000_000_000L / elapsed,
+                latencies[latencies.length / 2] / 1_000_000.0,
+                latencies[(int) (latencies.length * 0.99)] / 1_000_000.0,
+                failures.get());
+    }
+
+    private record Result(long requestsPerSecond, double p50Millis, double p99Millis, long failures) {
+        @Override
+        public String toString() {
+            return String.format("%,d requests/sec, p50 %.1f ms, p99 %.1f ms, %d failures",
+                    requestsPerSecond, p50Millis, p99Millis, failures);
+        }
+    }
+}
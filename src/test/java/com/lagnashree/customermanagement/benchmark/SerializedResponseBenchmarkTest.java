@@ -0,0 +1,100 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.dto.PersonalDetailDTO;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares serialising a cached view DTO on every response with writing its cached JSON bytes.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class SerializedResponseBenchmarkTest {
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    public void serializedResponses_cachedBytes_againstJackson() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CustomerManagementRepository repository = Mockito.mock(CustomerManagementRepository.class);
+        CustomerViewCache cache = new CustomerViewCache(repository, objectMapper, 1000);
+        PersonalDetailDTO dto = personalDetail();
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, dto, cache.stamp("12345"));
+        assertArrayEquals(objectMapper.writeValueAsBytes(dto), cache.getEncoded("12345", CustomerView.PERSONAL_DETAILS, dto, false));
+
+        Measurement jackson = measure(() -> objectMapper.writeValueAsBytes(dto));
+        Measurement cached = measure(() -> cache.getEncoded("12345", CustomerView.PERSONAL_DETAILS, dto, false));
+        Measurement cachedGzip = measure(() -> cache.getEncoded("12345", CustomerView.PERSONAL_DETAILS, dto, true));
+        System.out.printf("jackson per request : %s%n", jackson);
+        System.out.printf("cached json bytes   : %s%n", cached);
+        System.out.printf("cached gzip bytes   : %s%n", cachedGzip);
+
+        assertTrue(cached.bytesPerOperation * 10 < jackson.bytesPerOperation, "cached bytes should allocate far less");
+        assertTrue(cached.nanosPerOperation < jackson.nanosPerOperation, "cached bytes should be faster");
+    }
+
+    private static Measurement measure(Operation operation) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.run().length;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(sink > 0);
+        return new Measurement((double) elapsed / ITERATIONS, (double) allocated / ITERATIONS);
+    }
+
+    private static PersonalDetailDTO personalDetail() {
+        return PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .dob("01/01/1990")
+                .address(PersonalDetailDTO.Address.builder()
+                        .street("Sodertorp")
+                        .houseNumber("123")
+                        .city("Malmö")
+                        .country("Sweden")
+                        .countryCode("SE").build())
+                .contact(List.of(
+                        PersonalDetailDTO.Contact.builder().code("+46").number("783946273").build(),
+                        PersonalDetailDTO.Contact.builder().code("+46").number("783946274").build()))
+                .build();
+    }
+
+    private interface Operation {
+        byte[] run() throws IOException;
+    }
+
+    private static final class Measurement {
+        private final double nanosPerOperation;
+        private final double bytesPerOperation;
+
+        private Measurement(double nanosPerOperation, double bytesPerOperation) {
+            this.nanosPerOperation = nanosPerOperation;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%8.1f ns/op %8.1f bytes/op", nanosPerOperation, bytesPerOperation);
+        }
+    }
+}
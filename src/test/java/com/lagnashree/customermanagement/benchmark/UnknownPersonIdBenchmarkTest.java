@@ -0,0 +1,131 @@
+package com.lagnashree.customermanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.exception.CustomerNotFoundException;
+import com.lagnashree.customermanagement.exception.InvalidInputException;
+import com.lagnashree.customermanagement.repository.BankDetailWriteAheadLog;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerSnapshot;
+import com.lagnashree.customermanagement.repository.CustomerSnapshotWriter;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures lookups of unknown personIds in a memory-mapped snapshot of one million customers: probing the snapshot
+ * against asking the repository, which rules them out with the personId filter, and an invalid input exception with a
+ * stack trace against the stackless not-found exception. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+public class UnknownPersonIdBenchmarkTest {
+    private static final int CUSTOMERS = 1_000_000;
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    public void personIdFilter_againstSnapshotProbe() throws Exception {
+        Path dataFile = dataDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                writer.write("{\"personId\":\"" + (10_000_000 + i) + "\",\"firstName\":\"Peter\",\"city\":\"Malmö\",\"phone\":[\"+46783946273\"]}\n");
+            }
+        }
+        Path snapshotFile = dataDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(dataFile, snapshotFile);
+        Random random = new Random(42);
+        String[] unknownIds = new String[4096];
+        for (int i = 0; i < unknownIds.length; i++) {
+            unknownIds[i] = String.valueOf(20_000_000 + random.nextInt(CUSTOMERS));
+        }
+
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16);
+        try {
+            CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+            ReflectionTestUtils.setField(repository, "filePath", snapshotFile.toString());
+            repository.loadCustomerData();
+            CustomerSnapshot snapshot = CustomerSnapshot.open(snapshotFile);
+            CustomerManagementService service = new CustomerManagementService(repository,
+                    new CustomerViewCache(repository, new ObjectMapper(), 10_000));
+
+            double probe = measure(unknownIds, personId -> snapshot.findByPersonId(personId, CustomerView.PERSONAL_DETAILS) == null ? 1 : 0);
+            double filtered = measure(unknownIds, personId -> repository.findByPersonId(personId, CustomerView.PERSONAL_DETAILS) == null ? 1 : 0);
+            double withStackTrace = measure(unknownIds, personId -> {
+                try {
+                    throw new InvalidInputException("invalid person id");
+                } catch (InvalidInputException e) {
+                    return e.getMessage().length();
+                }
+            });
+            double stackless = measure(unknownIds, personId -> {
+                try {
+                    throw new CustomerNotFoundException();
+                } catch (CustomerNotFoundException e) {
+                    return e.getMessage().length();
+                }
+            });
+            double request = measure(unknownIds, personId -> {
+                try {
+                    service.getCustomerPersonalDetails(personId);
+                    return 0;
+                } catch (CustomerNotFoundException e) {
+                    return 1;
+                }
+            });
+            System.out.printf("snapshot probe                  : %8.1f ns/op%n", probe);
+            System.out.printf("repository with personId filter : %8.1f ns/op%n", filtered);
+            System.out.printf("exception with stack trace      : %8.1f ns/op%n", withStackTrace);
+            System.out.printf("stackless not-found exception   : %8.1f ns/op%n", stackless);
+            System.out.printf("service lookup of unknown id    : %8.1f ns/op%n", request);
+
+            for (String personId : unknownIds) {
+                assertNull(repository.findByPersonId(personId));
+            }
+            assertTrue(filtered < probe, "the personId filter should beat probing the snapshot");
+            assertTrue(stackless < withStackTrace, "the stackless exception should beat filling in a stack trace");
+        } finally {
+            writeAheadLog.close();
+        }
+    }
+
+    /**
+     * This function returns the best of several rounds, the loop is shared by all operations and the first rounds of
+     * an operation can run on code the JIT compiled for the previous one.
+     */
+    private static double measure(String[] personIds, Operation operation) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.run(personIds[i & (personIds.length - 1)]);
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += operation.run(personIds[i & (personIds.length - 1)]);
+            }
+            best = Math.min(best, (double) (System.nanoTime() - start) / ITERATIONS);
+        }
+        assertTrue(sink > 0);
+        return best;
+    }
+
+    private interface Operation {
+        int run(String personId) throws Exception;
+    }
+}
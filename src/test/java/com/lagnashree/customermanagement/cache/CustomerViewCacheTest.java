@@ -0,0 +1,50 @@
+package com.lagnashree.customermanagement.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CustomerViewCacheTest {
+    private final CustomerManagementRepository customerManagementRepository = Mockito.mock(CustomerManagementRepository.class);
+    private final CustomerViewCache cache = new CustomerViewCache(customerManagementRepository, new ObjectMapper(), 100);
+
+    @Test
+    public void CustomerViewCache_put_RefusesViewOfPatchedCustomerOnly() {
+        long stamp = cache.stamp("12345");
+        long otherStamp = cache.stamp("54321");
+        cache.beginInvalidation("12345");
+        cache.endInvalidation("12345");
+
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, "stale", stamp);
+        cache.put("54321", CustomerView.PERSONAL_DETAILS, "other", otherStamp);
+        assertNull(cache.get("12345", CustomerView.PERSONAL_DETAILS, String.class));
+        assertEquals("other", cache.get("54321", CustomerView.PERSONAL_DETAILS, String.class));
+        Mockito.verify(customerManagementRepository, Mockito.never()).findVersion(Mockito.any());
+    }
+
+    @Test
+    public void CustomerViewCache_get_MissesWhilePatchIsInProgress() {
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, "before", cache.stamp("12345"));
+        cache.beginInvalidation("12345");
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, "during", cache.stamp("12345"));
+        assertNull(cache.get("12345", CustomerView.PERSONAL_DETAILS, String.class));
+
+        cache.endInvalidation("12345");
+        assertNull(cache.get("12345", CustomerView.PERSONAL_DETAILS, String.class));
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, "after", cache.stamp("12345"));
+        assertEquals("after", cache.get("12345", CustomerView.PERSONAL_DETAILS, String.class));
+    }
+
+    @Test
+    public void CustomerViewCache_get_DropsViewsOfPreviousSnapshot() {
+        long stamp = cache.stamp("12345");
+        Mockito.when(customerManagementRepository.getGeneration()).thenReturn(1L);
+        cache.put("12345", CustomerView.PERSONAL_DETAILS, "stale", stamp);
+        assertNull(cache.get("12345", CustomerView.PERSONAL_DETAILS, String.class));
+    }
+}
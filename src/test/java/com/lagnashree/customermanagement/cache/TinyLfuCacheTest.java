@@ -0,0 +1,65 @@
+package com.lagnashree.customermanagement.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    public void TinyLfuCache_put_KeepsFrequentlyUsedKeys() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            String key = "hot" + i;
+            for (int access = 0; access < 3; access++) {
+                cache.get(key);
+            }
+            cache.put(key, key);
+        }
+        for (int i = 0; i < 500; i++) {
+            String key = "cold" + i;
+            cache.get(key);
+            cache.put(key, key);
+        }
+        assertEquals(100, cache.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("hot" + i, cache.get("hot" + i));
+        }
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(100, statistics.getHits());
+        assertEquals(0, statistics.getEvictions());
+        assertEquals(500, statistics.getRejections());
+    }
+
+    @Test
+    public void TinyLfuCache_put_CountsEvictionsApartFromRejections() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(2);
+        cache.put("1", "one");
+        cache.put("2", "two");
+        // "3" has been requested more often than the oldest entry, so it is admitted and "1" is evicted
+        cache.get("3");
+        cache.get("3");
+        cache.put("3", "three");
+        assertNull(cache.peek("1"));
+        // "4" has never been requested, so it is turned away
+        cache.put("4", "four");
+        assertNull(cache.peek("4"));
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getEvictions());
+        assertEquals(1, statistics.getRejections());
+        assertEquals(2, statistics.getSize());
+    }
+
+    @Test
+    public void TinyLfuCache_invalidate_RemovesOnlyThatKey() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("1", "one");
+        cache.put("2", "two");
+        cache.invalidate("1");
+        assertNull(cache.get("1"));
+        assertEquals("two", cache.get("2"));
+        cache.invalidate("2", "other");
+        assertEquals("two", cache.get("2"));
+    }
+}
@@ -1,45 +1,67 @@
 package com.lagnashree.customermanagement.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
 import com.lagnashree.customermanagement.dto.*;
 import com.lagnashree.customermanagement.exception.InvalidInputException;
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.CustomerSearchIndex;
+import com.lagnashree.customermanagement.repository.CustomerView;
 import com.lagnashree.customermanagement.service.CustomerManagementService;
 import com.lagnashree.customermanagement.exception.CustomExceptionHandler;
-import org.junit.Before;
-import org.junit.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
-import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
-@WebMvcTest(CustomerManagementController.class)
 public class CustomerManagementControllerTest {
-    @Autowired
     private MockMvc mockMvc;
     @Mock
     CustomerManagementService customerManagementService;
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+    @Mock
+    CustomerViewCache customerViewCache;
+    @Spy
+    FieldProjections fieldProjections = new FieldProjections(new ObjectMapper());
     @InjectMocks
     private CustomerManagementController customerManagementController;
 
-    @Before
+    @BeforeEach
     public void setUp(){
         MockitoAnnotations.openMocks(this);
         this.mockMvc= MockMvcBuilders.standaloneSetup(customerManagementController)
@@ -84,6 +106,62 @@ public class CustomerManagementControllerTest {
 
 
     }
+    @Test
+    public void customerManagementController_getCustomerDetails_fields_projectsView() throws Exception{
+        PersonalDetailDTO personalDetail= PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .dob("01/01/1990")
+                .address(PersonalDetailDTO.Address.builder()
+                        .street("Sodertorp")
+                        .city("Malmö")
+                        .country("Sweden")
+                        .build())
+                .contact(Arrays.asList(
+                        PersonalDetailDTO.Contact.builder().code("+46").number("783946273").build(),
+                        PersonalDetailDTO.Contact.builder().code("+49").number("763445673").build()))
+                .build();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenReturn(personalDetail);
+        mockMvc.perform(get("/getDetails/person/12345/request/personalDetails?fields=name,address.city,contact.number"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"name\":\"Peter Nilson\",\"address\":{\"city\":\"Malmö\"},"
+                        + "\"contact\":[{\"number\":\"783946273\"},{\"number\":\"763445673\"}]}", true));
+        mockMvc.perform(get("/getDetails/person/12345/request/personalDetails?fields=name,,address"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.description").value("invalid fields value"));
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetails_cbor() throws Exception{
+        PersonalDetailDTO personalDetail= PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .address(PersonalDetailDTO.Address.builder().city("Malmö").build())
+                .build();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenReturn(personalDetail);
+        MvcResult mvcResult = mockMvc.perform(get("/getDetails/person/12345/request/personalDetails")
+                        .header("Accept", "application/cbor, application/json;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+        JsonNode body = new CBORMapper().readTree(mvcResult.getResponse().getContentAsByteArray());
+        assertEquals("Peter Nilson", body.get("name").asText());
+        assertEquals("Malmö", body.get("address").get("city").asText());
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetails_cbor_failure_invalidPersonId() throws Exception{
+        Mockito.when(customerManagementService.getCustomerPersonalDetails(Mockito.any())).thenThrow(new InvalidInputException("invalid person id"));
+        MvcResult mvcResult = mockMvc.perform(get("/getDetails/person/123456/request/personalDetails")
+                        .header("Accept", "application/cbor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn();
+        JsonNode body = new CBORMapper().readTree(mvcResult.getResponse().getContentAsByteArray());
+        assertEquals("FAIL", body.get("status").asText());
+        assertEquals("invalid person id", body.get("description").asText());
+    }
+
     @Test
     public void customerManagementController_getCustomerDetails_personalDetails_failure_invalidPersonId() throws Exception{
         String personId = "123456";
@@ -192,6 +270,147 @@ public class CustomerManagementControllerTest {
 
     }
 
+    @Test
+    public void customerManagementController_getCustomerDetailsBatch_success() throws Exception{
+        BatchDetailRequestDTO batchRequest = BatchDetailRequestDTO.builder()
+                .items(List.of(
+                        BatchDetailRequestDTO.Item.builder().personId("12345").requestType("bankDetails").build(),
+                        BatchDetailRequestDTO.Item.builder().personId("123456").requestType("bankDetails").build()))
+                .build();
+        BatchDetailResponseDTO batchResponse = BatchDetailResponseDTO.builder()
+                .results(List.of(
+                        BatchDetailResponseDTO.Result.builder()
+                                .personId("12345")
+                                .requestType("bankDetails")
+                                .status("SUCCESS")
+                                .details(BankDetailDTO.builder().personId("12345").name("Peter Nilson").build())
+                                .build(),
+                        BatchDetailResponseDTO.Result.builder()
+                                .personId("123456")
+                                .requestType("bankDetails")
+                                .status("FAIL")
+                                .error("invalid person id")
+                                .build()))
+                .build();
+        Mockito.when(customerManagementService.getCustomerDetails(batchRequest)).thenReturn(batchResponse);
+        mockMvc.perform(MockMvcRequestBuilders.
+                        post("/getDetails/batch")
+                        .content(new ObjectMapper().writeValueAsString(batchRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results",hasSize(2)))
+                .andExpect(jsonPath("$.results[0].details.name").value("Peter Nilson"))
+                .andExpect(jsonPath("$.results[1].status").value("FAIL"))
+                .andExpect(jsonPath("$.results[1].error").value("invalid person id"));
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetails_serializedResponse_gzipRefused() throws Exception{
+        ReflectionTestUtils.setField(customerManagementController, "serializedResponses", true);
+        ReflectionTestUtils.setField(customerManagementController, "gzipResponses", true);
+        BankDetailDTO bankDetail = BankDetailDTO.builder().personId("12345").name("Peter Nilson").build();
+        Mockito.when(customerManagementService.getCustomerBankDetails("12345")).thenReturn(bankDetail);
+        Mockito.when(customerViewCache.getEncoded("12345", CustomerView.BANK_DETAILS, bankDetail, false))
+                .thenReturn(new ObjectMapper().writeValueAsBytes(bankDetail));
+        mockMvc.perform(get("/getDetails/person/12345/request/bankDetails")
+                        .header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(jsonPath("$.name").value("Peter Nilson"));
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetailsBatch_gzip() throws Exception{
+        ReflectionTestUtils.setField(customerManagementController, "compressResponses", true);
+        BatchDetailRequestDTO batchRequest = BatchDetailRequestDTO.builder()
+                .items(List.of(BatchDetailRequestDTO.Item.builder().personId("12345").requestType("bankDetails").build()))
+                .build();
+        BatchDetailResponseDTO batchResponse = BatchDetailResponseDTO.builder()
+                .results(List.of(BatchDetailResponseDTO.Result.builder()
+                        .personId("12345")
+                        .requestType("bankDetails")
+                        .status("SUCCESS")
+                        .details(BankDetailDTO.builder().personId("12345").name("Peter Nilson").build())
+                        .build()))
+                .build();
+        Mockito.when(customerManagementService.getCustomerDetails(batchRequest)).thenReturn(batchResponse);
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.
+                        post("/getDetails/batch")
+                        .header("Accept-Encoding", "deflate;q=0.5, gzip")
+                        .content(new ObjectMapper().writeValueAsString(batchRequest))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn();
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray())).readAllBytes();
+        assertEquals(new ObjectMapper().writeValueAsString(batchResponse), new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetailsBatch_failure_emptyItems() throws Exception{
+        mockMvc.perform(MockMvcRequestBuilders.
+                        post("/getDetails/batch")
+                        .content("{\"items\":[]}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void customerManagementController_searchCustomerDetails_success() throws Exception{
+        Map<CustomerSearchIndex.Field, List<String>> criteria = new EnumMap<>(CustomerSearchIndex.Field.class);
+        criteria.put(CustomerSearchIndex.Field.CITY, List.of("Malmö", "Lund"));
+        criteria.put(CustomerSearchIndex.Field.COUNTRY_CODE, null);
+        criteria.put(CustomerSearchIndex.Field.BANK_NAME, null);
+        criteria.put(CustomerSearchIndex.Field.PAYMENT_NETWORK, List.of("VISA"));
+        Mockito.when(customerManagementService.searchCustomers(criteria, "all", "bankDetails", 1, 20)).thenReturn(SearchResultDTO.builder()
+                .total(21)
+                .page(1)
+                .size(20)
+                .results(List.of(BankDetailDTO.builder().personId("12345").name("Peter Nilson").build()))
+                .build());
+        mockMvc.perform(get("/searchDetails?city=Malmö&city=Lund&paymentNetwork=VISA&requestType=bankDetails&page=1&size=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(21))
+                .andExpect(jsonPath("$.results",hasSize(1)))
+                .andExpect(jsonPath("$.results[0].personId").value("12345"));
+    }
+
+    @Test
+    public void customerManagementController_searchPhoneNumber_success() throws Exception{
+        Mockito.when(customerManagementService.searchPhoneNumber("+46 78", "prefix", 0, 50)).thenReturn(PhoneNumberSearchResultDTO.builder()
+                .total(1)
+                .page(0)
+                .size(50)
+                .results(List.of(PhoneNumberSearchResultDTO.Match.builder().phoneNumber("+46783946273").personId("12345").build()))
+                .build());
+        mockMvc.perform(get("/searchDetails/phone").param("phoneNumber", "+46 78").param("match", "prefix"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.results[0].phoneNumber").value("+46783946273"))
+                .andExpect(jsonPath("$.results[0].personId").value("12345"));
+    }
+
+    @Test
+    public void customerManagementController_exportCustomerDetails_success() throws Exception{
+        Mockito.when(customerManagementService.getExportView("bankDetails")).thenReturn(CustomerView.BANK_DETAILS);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Object> consumer = invocation.getArgument(2);
+            consumer.accept(BankDetailDTO.builder().personId("12345").name("Peter Nilson").build());
+            consumer.accept(BankDetailDTO.builder().personId("67890").name("John Nilson").build());
+            return null;
+        }).when(customerManagementService).exportCustomerDetails(Mockito.eq(CustomerView.BANK_DETAILS), Mockito.eq(Map.of("country", "Sweden")), Mockito.any());
+        MvcResult mvcResult = mockMvc.perform(get("/exportDetails?requestType=bankDetails&country=Sweden"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"personId\":\"12345\",\"name\":\"Peter Nilson\",\"bank\":null,\"card\":null}\n"
+                        + "{\"personId\":\"67890\",\"name\":\"John Nilson\",\"bank\":null,\"card\":null}\n"));
+    }
+
     @Test
     public void customerManagementController_getCustomerDetails_patchBankDetails_success() throws Exception{
 
@@ -223,6 +442,7 @@ public class CustomerManagementControllerTest {
         String requestJson=ow.writeValueAsString(patchBankDetail );
 
         CustomerDTO customerObj = CustomerDTO.builder()
+                .etag("0-abc")
                 .firstName("John")
                 .lastName("Nilson")
                 .personId("12345")
@@ -264,7 +484,7 @@ public class CustomerManagementControllerTest {
                                 .build())
                         .build())
                 .build();
-        Mockito.when(customerManagementService.patchBankDetails(patchBankDetail)).thenReturn(customerObj);
+        Mockito.when(customerManagementService.patchBankDetails(patchBankDetail, null)).thenReturn(customerObj);
         mockMvc.perform(MockMvcRequestBuilders.
                         patch("/updateDetails/bank")
                         .content(requestJson)
@@ -272,6 +492,7 @@ public class CustomerManagementControllerTest {
                 )
                                 .andExpect(status().isOk())
                 .andDo(print())
+                .andExpect(header().string("ETag", "\"0-abc\""))
                 .andExpect(jsonPath("$.firstName").value("John"))
                 .andExpect(jsonPath("$.lastName").value("Nilson"))
                 .andExpect(jsonPath("$.phone",hasSize(4)))
@@ -289,4 +510,72 @@ public class CustomerManagementControllerTest {
                 .andExpect(jsonPath("$.education.college.degree").value("MS"));
 
     }
+
+    @Test
+    public void customerManagementController_patchBankDetails_failure_versionConflict() throws Exception{
+        PatchBankDetailDTO patchBankDetail = PatchBankDetailDTO.builder()
+                .personId("12345")
+                .newBankDetails(PatchBankDetailDTO.NewBankDetails.builder()
+                        .name("XYZ Bank")
+                        .account("123456789")
+                        .branch("Branch123")
+                        .debitCard(PatchBankDetailDTO.NewBankDetails.DebitCard.builder()
+                                .number("1234 5678 9101 1122")
+                                .paymentNetwork("VISA")
+                                .build())
+                        .build())
+                .creditCards(List.of())
+                .build();
+        String requestJson = new ObjectMapper().writeValueAsString(patchBankDetail);
+        Mockito.when(customerManagementService.patchBankDetails(patchBankDetail, List.of("3-abc")))
+                .thenThrow(new PreconditionFailedException("customer has been modified, current ETag is 4-abc"));
+        mockMvc.perform(MockMvcRequestBuilders.
+                        patch("/updateDetails/bank")
+                        .header("If-Match", "\"3-abc\"")
+                        .content(requestJson)
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print())
+                .andExpect(jsonPath("$.status").value("FAIL"))
+                .andExpect(jsonPath("$.description").value("customer has been modified, current ETag is 4-abc"));
+    }
+
+    @Test
+    public void customerManagementController_parseIfMatch() throws Exception {
+        assertNull(CustomerManagementController.parseIfMatch(null));
+        assertNull(CustomerManagementController.parseIfMatch(" * "));
+        assertEquals(List.of("3-abc"), CustomerManagementController.parseIfMatch("\"3-abc\""));
+        assertEquals(List.of("2-abc", "3-a,c"),
+                CustomerManagementController.parseIfMatch("\"2-abc\" ,W/\"3-abc\", \"3-a,c\""));
+        assertThrows(PreconditionFailedException.class, () -> CustomerManagementController.parseIfMatch("W/\"3-abc\""));
+        assertThrows(PreconditionFailedException.class, () -> CustomerManagementController.parseIfMatch("3-abc"));
+        assertThrows(PreconditionFailedException.class, () -> CustomerManagementController.parseIfMatch("\"3-abc"));
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetails_notModified() throws Exception{
+        Mockito.when(customerManagementService.getCustomerRevision("12345"))
+                .thenReturn(new CustomerRevision(3, "3-abc", Instant.parse("2024-01-01T10:00:00Z")));
+        mockMvc.perform(get("/getDetails/person/12345/request/personalDetails")
+                        .header("If-None-Match", "\"3-abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3-abc\""))
+                .andExpect(content().string(""));
+        Mockito.verify(customerManagementService, Mockito.never()).getCustomerPersonalDetails(Mockito.any());
+    }
+
+    @Test
+    public void customerManagementController_getCustomerDetails_modified() throws Exception{
+        Mockito.when(customerManagementService.getCustomerRevision("12345"))
+                .thenReturn(new CustomerRevision(4, "4-abc", Instant.parse("2024-01-01T10:00:00Z")));
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345"))
+                .thenReturn(PersonalDetailDTO.builder().personId("12345").build());
+        mockMvc.perform(get("/getDetails/person/12345/request/personalDetails")
+                        .header("If-None-Match", "\"3-abc\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4-abc\""))
+                .andExpect(header().string("Last-Modified", "Mon, 01 Jan 2024 10:00:00 GMT"))
+                .andExpect(jsonPath("$.personId").value("12345"));
+    }
 }
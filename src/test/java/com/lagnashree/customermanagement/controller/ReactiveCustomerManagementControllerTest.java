@@ -0,0 +1,223 @@
+package com.lagnashree.customermanagement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.lagnashree.customermanagement.dto.BankDetailDTO;
+import com.lagnashree.customermanagement.dto.CustomerDTO;
+import com.lagnashree.customermanagement.dto.PatchBankDetailDTO;
+import com.lagnashree.customermanagement.dto.PersonalDetailDTO;
+import com.lagnashree.customermanagement.exception.CustomExceptionHandler;
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
+import com.lagnashree.customermanagement.logging.CorrelationId;
+import com.lagnashree.customermanagement.logging.CorrelationIdWebFilter;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.service.CustomerManagementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveCustomerManagementControllerTest {
+    @Mock
+    CustomerManagementService customerManagementService;
+    @Mock
+    CustomerViewCache customerViewCache;
+    @Spy
+    FieldProjections fieldProjections = new FieldProjections(new ObjectMapper());
+    @InjectMocks
+    private ReactiveCustomerManagementController reactiveCustomerManagementController;
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setUp() {
+        webTestClient = WebTestClient.bindToController(reactiveCustomerManagementController)
+                .controllerAdvice(new CustomExceptionHandler())
+                .build();
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_personalDetails_success() throws Exception {
+        PersonalDetailDTO personalDetail = PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .dob("01/01/1990")
+                .address(PersonalDetailDTO.Address.builder().city("Malmö").country("Sweden").build())
+                .contact(List.of(PersonalDetailDTO.Contact.builder().code("+46").number("783946273").build()))
+                .build();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenReturn(personalDetail);
+        webTestClient.get().uri("/getDetails/person/12345/request/personalDetails")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Peter Nilson")
+                .jsonPath("$.address.city").isEqualTo("Malmö")
+                .jsonPath("$.contact[0].number").isEqualTo("783946273");
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_serializedResponse_gzip() throws Exception {
+        ReflectionTestUtils.setField(reactiveCustomerManagementController, "serializedResponses", true);
+        ReflectionTestUtils.setField(reactiveCustomerManagementController, "gzipResponses", true);
+        BankDetailDTO bankDetail = BankDetailDTO.builder().personId("12345").name("Peter Nilson").build();
+        Mockito.when(customerManagementService.getCustomerBankDetails("12345")).thenReturn(bankDetail);
+        Mockito.when(customerViewCache.getEncoded("12345", CustomerView.BANK_DETAILS, bankDetail, true))
+                .thenReturn(new byte[]{31, -117});
+        webTestClient.get().uri("/getDetails/person/12345/request/bankDetails")
+                .header("Accept-Encoding", "deflate;q=0.5, gzip;q=0.8")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Content-Encoding", "gzip")
+                .expectHeader().valueEquals("Vary", "Accept-Encoding");
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_fields() throws Exception {
+        PersonalDetailDTO personalDetail = PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .address(PersonalDetailDTO.Address.builder().city("Malmö").country("Sweden").build())
+                .build();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenReturn(personalDetail);
+        webTestClient.get().uri("/getDetails/person/12345/request/personalDetails?fields=personId,address.country")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("{\"personId\":\"12345\",\"address\":{\"country\":\"Sweden\"}}", true);
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_fields_smile() throws Exception {
+        PersonalDetailDTO personalDetail = PersonalDetailDTO.builder()
+                .name("Peter Nilson")
+                .personId("12345")
+                .build();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenReturn(personalDetail);
+        byte[] body = webTestClient.get().uri("/getDetails/person/12345/request/personalDetails?fields=name")
+                .header("Accept", "application/x-jackson-smile")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-jackson-smile")
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+        assertEquals("{\"name\":\"Peter Nilson\"}", new SmileMapper().readTree(body).toString());
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_notModified() throws Exception {
+        Mockito.when(customerManagementService.getCustomerRevision("12345"))
+                .thenReturn(new CustomerRevision(3, "3-abc", Instant.parse("2024-01-01T10:00:00Z")));
+        webTestClient.get().uri("/getDetails/person/12345/request/personalDetails")
+                .header("If-Modified-Since", "Mon, 01 Jan 2024 10:00:00 GMT")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"3-abc\"")
+                .expectBody().isEmpty();
+        Mockito.verify(customerManagementService, Mockito.never()).getCustomerPersonalDetails(Mockito.any());
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_failure_invalidRequestType() {
+        webTestClient.get().uri("/getDetails/person/12345/request/address")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAIL")
+                .jsonPath("$.description").isEqualTo("invalid requestType value");
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_patchBankDetails_success() throws Exception {
+        PatchBankDetailDTO patchBankDetail = patchBankDetail();
+        Mockito.when(customerManagementService.patchBankDetails(patchBankDetail, List.of("1-abc", "2-abc")))
+                .thenReturn(CustomerDTO.builder().personId("12345").version(3L).etag("3-abc").build());
+        webTestClient.patch().uri("/updateDetails/bank")
+                .header("If-Match", "\"1-abc\", W/\"2-abc\", \"2-abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patchBankDetail)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"3-abc\"")
+                .expectBody()
+                .jsonPath("$.personId").isEqualTo("12345")
+                .jsonPath("$.etag").doesNotExist();
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_patchBankDetails_failure_versionConflict() throws Exception {
+        PatchBankDetailDTO patchBankDetail = patchBankDetail();
+        Mockito.when(customerManagementService.patchBankDetails(patchBankDetail, List.of("3-abc")))
+                .thenThrow(new PreconditionFailedException("customer has been modified, current ETag is 4-abc"));
+        webTestClient.patch().uri("/updateDetails/bank")
+                .header("If-Match", "\"3-abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patchBankDetail)
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("customer has been modified, current ETag is 4-abc");
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_patchBankDetails_failure_invalidBody() {
+        webTestClient.patch().uri("/updateDetails/bank")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"personId\":\"12345\",\"creditCards\":[]}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAIL")
+                .jsonPath("$.description").isEqualTo("{newBankDetails=must not be null}");
+    }
+
+    @Test
+    public void reactiveCustomerManagementController_getCustomerDetails_correlationIdInMdc() throws Exception {
+        WebTestClient correlatedClient = WebTestClient.bindToController(reactiveCustomerManagementController)
+                .webFilter(new CorrelationIdWebFilter())
+                .controllerAdvice(new CustomExceptionHandler())
+                .build();
+        List<String> correlationIds = new ArrayList<>();
+        Mockito.when(customerManagementService.getCustomerPersonalDetails("12345")).thenAnswer(invocation -> {
+            correlationIds.add(MDC.get(CorrelationId.MDC_KEY));
+            return PersonalDetailDTO.builder().personId("12345").build();
+        });
+        correlatedClient.get().uri("/getDetails/person/12345/request/personalDetails")
+                .header(CorrelationId.HEADER, "checkout-4711")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CorrelationId.HEADER, "checkout-4711");
+        assertEquals(List.of("checkout-4711"), correlationIds);
+    }
+
+    private static PatchBankDetailDTO patchBankDetail() {
+        return PatchBankDetailDTO.builder()
+                .personId("12345")
+                .newBankDetails(PatchBankDetailDTO.NewBankDetails.builder()
+                        .name("XYZ Bank")
+                        .account("123456789")
+                        .branch("Branch123")
+                        .debitCard(PatchBankDetailDTO.NewBankDetails.DebitCard.builder()
+                                .number("1234 5678 9101 1122")
+                                .paymentNetwork("VISA")
+                                .build())
+                        .build())
+                .creditCards(List.of())
+                .build();
+    }
+}
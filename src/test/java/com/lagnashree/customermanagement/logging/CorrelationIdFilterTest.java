@@ -0,0 +1,47 @@
+package com.lagnashree.customermanagement.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CorrelationIdFilterTest {
+
+    @Test
+    public void CorrelationIdFilter_doFilter_PutsCorrelationIdIntoMdcAndResponse() throws Exception {
+        CorrelationIdFilter filter = new CorrelationIdFilter();
+        List<String> seen = new ArrayList<>();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/getDetails/person/12345/request/personalDetails");
+        request.addHeader(CorrelationId.HEADER, "checkout-4711");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> seen.add(MDC.get(CorrelationId.MDC_KEY)));
+        assertEquals(List.of("checkout-4711"), seen);
+        assertEquals("checkout-4711", response.getHeader(CorrelationId.HEADER));
+        assertNull(MDC.get(CorrelationId.MDC_KEY));
+
+        // a missing or unusable header gets a generated id
+        for (String header : new String[]{null, "", "line\nbreak", "x".repeat(65)}) {
+            request = new MockHttpServletRequest("GET", "/searchDetails");
+            if (header != null) {
+                request.addHeader(CorrelationId.HEADER, header);
+            }
+            response = new MockHttpServletResponse();
+            seen.clear();
+            filter.doFilter(request, response, (req, res) -> seen.add(MDC.get(CorrelationId.MDC_KEY)));
+            String generated = response.getHeader(CorrelationId.HEADER);
+            assertTrue(generated.matches("[0-9a-f]{16}"), generated);
+            assertNotEquals(header, generated);
+            assertEquals(List.of(generated), seen);
+            assertNull(MDC.get(CorrelationId.MDC_KEY));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.lagnashree.customermanagement.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferAsyncAppenderTest {
+    // the context of the logging system, it holds the MDC adapter the events read on the logging thread
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    private final Logger logger = context.getLogger(RingBufferAsyncAppenderTest.class);
+
+    @Test
+    public void RingBufferAsyncAppender_drop_DropsInfoButWaitsWithWarnings() throws Exception {
+        GateAppender gate = new GateAppender();
+        RingBufferAsyncAppender appender = start(gate, RingBufferAsyncAppender.OverflowPolicy.DROP);
+
+        // the worker holds the first event in the gate, the next two fill the buffer
+        appender.doAppend(event(Level.INFO, "first"));
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+        appender.doAppend(event(Level.INFO, "second"));
+        appender.doAppend(event(Level.INFO, "third"));
+        appender.doAppend(event(Level.INFO, "dropped"));
+        assertEquals(1, appender.getDroppedCount());
+
+        Thread warning = new Thread(() -> appender.doAppend(event(Level.WARN, "warning")));
+        warning.start();
+        awaitBlocked(appender, 1);
+        gate.open.countDown();
+        warning.join(5000);
+        appender.stop();
+
+        assertEquals(List.of("first", "second", "third", "warning"), gate.messages);
+        assertEquals(1, appender.getDroppedCount());
+        assertEquals(1, appender.getBlockedCount());
+    }
+
+    @Test
+    public void RingBufferAsyncAppender_block_KeepsEveryEvent() throws Exception {
+        GateAppender gate = new GateAppender();
+        RingBufferAsyncAppender appender = start(gate, RingBufferAsyncAppender.OverflowPolicy.BLOCK);
+
+        appender.doAppend(event(Level.INFO, "first"));
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+        appender.doAppend(event(Level.INFO, "second"));
+        appender.doAppend(event(Level.INFO, "third"));
+        Thread blocked = new Thread(() -> appender.doAppend(event(Level.INFO, "fourth")));
+        blocked.start();
+        awaitBlocked(appender, 1);
+        gate.open.countDown();
+        blocked.join(5000);
+        // stop writes what is still in the buffer
+        appender.doAppend(event(Level.INFO, "fifth"));
+        appender.stop();
+
+        assertEquals(List.of("first", "second", "third", "fourth", "fifth"), gate.messages);
+        assertEquals(0, appender.getDroppedCount());
+        assertEquals(1, appender.getBlockedCount());
+    }
+
+    private RingBufferAsyncAppender start(GateAppender gate, RingBufferAsyncAppender.OverflowPolicy overflowPolicy) {
+        gate.setContext(context);
+        gate.start();
+        RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+        appender.setContext(context);
+        appender.setName("test");
+        appender.setQueueSize(2);
+        appender.setOverflowPolicy(overflowPolicy);
+        appender.addAppender(gate);
+        appender.start();
+        return appender;
+    }
+
+    private ILoggingEvent event(Level level, String message) {
+        return new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+    }
+
+    private static void awaitBlocked(RingBufferAsyncAppender appender, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (appender.getBlockedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, appender.getBlockedCount());
+    }
+
+    /**
+     * Appender holding the first event until the gate is opened, like a console that stopped draining.
+     */
+    private static class GateAppender extends AppenderBase<ILoggingEvent> {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch open = new CountDownLatch(1);
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                open.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(event.getFormattedMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.lagnashree.customermanagement.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SamplingTurboFilterTest {
+    private static final int EVENTS = 100_000;
+
+    @Test
+    public void SamplingTurboFilter_decide_LetsOneInRateThrough() {
+        Logger logger = new LoggerContext().getLogger("test");
+        logger.setLevel(Level.INFO);
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setRate(10);
+        filter.start();
+
+        int passed = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.INFO, "Request received", null, null) == FilterReply.NEUTRAL) {
+                passed++;
+            }
+        }
+        assertTrue(passed > EVENTS / 10 * 0.9 && passed < EVENTS / 10 * 1.1, String.valueOf(passed));
+        assertEquals(EVENTS - passed, filter.getSampledOutCount());
+    }
+
+    @Test
+    public void SamplingTurboFilter_decide_KeepsUnmarkedWarningsAndDisabledEvents() {
+        Logger logger = new LoggerContext().getLogger("test");
+        logger.setLevel(Level.INFO);
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setRate(1_000_000);
+        filter.start();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "Loaded", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.WARN, "Slow", null, null));
+            // left to the level check of the logger, not counted as sampled out
+            assertEquals(FilterReply.NEUTRAL, filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.DEBUG, "Detail", null, null));
+        }
+        assertEquals(0, filter.getSampledOutCount());
+    }
+}
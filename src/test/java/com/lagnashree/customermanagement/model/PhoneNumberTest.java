@@ -0,0 +1,83 @@
+package com.lagnashree.customermanagement.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhoneNumberTest {
+
+    @Test
+    public void PhoneNumber_of_VariableLengthCallingCodes() {
+        assertParsed("+12025550173", "+1", "2025550173");
+        assertParsed("+74951234567", "+7", "4951234567");
+        assertParsed("+46783946273", "+46", "783946273");
+        assertParsed("+4915123456789", "+49", "15123456789");
+        assertParsed("+358401234567", "+358", "401234567");
+        assertParsed("+35312345678", "+353", "12345678");
+        assertParsed("+8613812345678", "+86", "13812345678");
+        assertParsed("+85223456789", "+852", "23456789");
+        assertParsed("+9715012345678", "+971", "5012345678");
+        assertParsed("+5999123456", "+599", "9123456");
+    }
+
+    @Test
+    public void PhoneNumber_of_DropsSeparators() {
+        assertParsed("+1 (202) 555-0173", "+1", "2025550173");
+        assertParsed(" +358 40 123 4567", "+358", "401234567");
+        assertParsed("+3-5-8.40/1234567", "+358", "401234567");
+        assertEquals("+358401234567", PhoneNumber.of("+358 40 123 4567").getNormalized());
+    }
+
+    @Test
+    public void PhoneNumber_of_NationalAndUnassignedNumbers() {
+        PhoneNumber national = PhoneNumber.of("01248745759");
+        assertFalse(national.isInternational());
+        assertNull(national.getCountryCode());
+        assertSame(national.getRaw(), national.getNationalNumber());
+        assertEquals("01248745759", national.getNormalized());
+        assertEquals("0401234567", PhoneNumber.of("040-123 45 67").getNationalNumber());
+
+        // +28x is not assigned, the number keeps all of its digits
+        PhoneNumber unassigned = PhoneNumber.of("+2812345678");
+        assertTrue(unassigned.isInternational());
+        assertNull(unassigned.getCountryCode());
+        assertEquals("2812345678", unassigned.getNationalNumber());
+        assertEquals("+2812345678", unassigned.getNormalized());
+        assertNull(PhoneNumber.of("+").getCountryCode());
+        assertEquals("", PhoneNumber.of("").getNationalNumber());
+    }
+
+    @Test
+    public void PhoneNumber_json_IsTheRawString() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Customer customer = mapper.readValue("{\"personId\":\"1\",\"phone\":[\"+358 40 123 4567\",\"0401234567\"]}", Customer.class);
+        assertEquals("+358", customer.getPhone().get(0).getCountryCode());
+        assertEquals("{\"personId\":\"1\",\"phone\":[\"+358 40 123 4567\",\"0401234567\"]}", mapper.writeValueAsString(customer));
+    }
+
+    @Test
+    public void CallingCodeTrie_RejectsCodesThatArePrefixes() {
+        assertThrows(IllegalArgumentException.class, () -> new CallingCodeTrie("35", "358"));
+        assertThrows(IllegalArgumentException.class, () -> new CallingCodeTrie("358", "35"));
+        CallingCodeTrie trie = new CallingCodeTrie("1", "44");
+        assertEquals("+1", trie.code(trie.next(0, 1)));
+        assertEquals(0, trie.next(0, 2));
+    }
+
+    private static void assertParsed(String raw, String countryCode, String nationalNumber) {
+        PhoneNumber phoneNumber = PhoneNumber.of(raw);
+        assertTrue(phoneNumber.isInternational());
+        assertEquals(List.of(countryCode, nationalNumber), List.of(phoneNumber.getCountryCode(), phoneNumber.getNationalNumber()), raw);
+        // every number of the same calling code shares one code string
+        assertSame(PhoneNumber.of(raw).getCountryCode(), phoneNumber.getCountryCode());
+    }
+}
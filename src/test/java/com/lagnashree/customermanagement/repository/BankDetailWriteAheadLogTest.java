@@ -0,0 +1,95 @@
+package com.lagnashree.customermanagement.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BankDetailWriteAheadLogTest {
+    @TempDir
+    Path walDir;
+
+    @Test
+    public void BankDetailWriteAheadLog_append_ConcurrentWritersAreAllDurable() throws Exception {
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(walDir.toString(), 64);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String personId = String.valueOf(i);
+            futures.add(executor.submit(() -> {
+                writeAheadLog.append(entry(personId));
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        writeAheadLog.close();
+
+        Set<Object> replayed = new HashSet<>();
+        new BankDetailWriteAheadLog(walDir.toString(), 64).replay(entry -> replayed.add(entry.getPersonId()));
+        assertEquals(500, replayed.size());
+    }
+
+    @Test
+    public void BankDetailWriteAheadLog_replay_SkipsTornLastLine() throws IOException {
+        Files.writeString(walDir.resolve("bank-1.wal"), "{\"personId\":\"1\"}\n{\"personId\":\"2\",\"ba", StandardCharsets.UTF_8);
+        List<Object> replayed = new ArrayList<>();
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(walDir.toString(), 64);
+        writeAheadLog.replay(entry -> replayed.add(entry.getPersonId()));
+        assertEquals(List.of("1"), replayed);
+
+        writeAheadLog.append(entry("3"));
+        List<Path> sealed = writeAheadLog.rotate();
+        assertEquals(2, sealed.size());
+        writeAheadLog.deleteSegments(sealed);
+        assertEquals(0, writeAheadLog.size());
+        assertTrue(Files.notExists(walDir.resolve("bank-1.wal")));
+        writeAheadLog.close();
+    }
+
+    @Test
+    public void BankDetailWriteAheadLog_close_AppendsFailInsteadOfHanging() throws Exception {
+        BankDetailWriteAheadLog writeAheadLog = new BankDetailWriteAheadLog(walDir.toString(), 64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String personId = String.valueOf(i);
+            futures.add(executor.submit(() -> {
+                try {
+                    writeAheadLog.append(entry(personId));
+                } catch (IOException e) {
+                    // refused or failed by close, the point is that it returns
+                }
+                return null;
+            }));
+        }
+        writeAheadLog.close();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        IOException refused = assertThrows(IOException.class, () -> writeAheadLog.append(entry("late")));
+        assertEquals("write-ahead log is closed", refused.getMessage());
+    }
+
+    private static BankDetailPatch entry(String personId) {
+        return BankDetailPatch.builder().personId(personId).build();
+    }
+}
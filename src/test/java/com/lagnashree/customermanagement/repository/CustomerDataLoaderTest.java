@@ -0,0 +1,62 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.lagnashree.customermanagement.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CustomerDataLoaderTest {
+
+    @Test
+    public void CustomerDataLoader_load_SingleObjectFile() throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        LoadStatistics statistics = CustomerDataLoader.load(Paths.get("src/test/resources/Person.json"), customers::add);
+        assertEquals(1, statistics.getRecords());
+        assertEquals("12345", customers.get(0).getPersonId());
+        assertEquals("Malmö", customers.get(0).getCity());
+        assertEquals(4, customers.get(0).getPhone().size());
+        assertEquals("MS", customers.get(0).getEducation().getCollege().getDegree());
+        // a single credit card object is bound as a list of one card
+        assertEquals("Mastero", customers.get(0).getBank().getCreditCard().get(0).getPaymentNetwork());
+    }
+
+    @Test
+    public void CustomerDataLoader_load_JsonArray() throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        LoadStatistics statistics = CustomerDataLoader.load(
+                input("[{\"personId\":\"1\",\"phone\":[\"+46783946273\"]},{\"personId\":\"2\"},{\"firstName\":\"x\"}]"),
+                customers::add);
+        assertEquals(2, statistics.getRecords());
+        assertEquals(1, statistics.getSkippedRecords());
+        assertEquals("2", customers.get(1).getPersonId());
+    }
+
+    @Test
+    public void CustomerDataLoader_load_NewlineDelimitedJson() throws IOException {
+        List<Customer> customers = new ArrayList<>();
+        LoadStatistics statistics = CustomerDataLoader.load(
+                input("{\"personId\":\"1\",\"bank\":{\"bankName\":\"xyz\"},\"unknownField\":{\"x\":[1]}}\n{\"personId\":\"2\"}\n\n{\"personId\":\"3\"}\n"),
+                customers::add);
+        assertEquals(3, statistics.getRecords());
+        assertEquals("xyz", customers.get(0).getBank().getBankName());
+        assertEquals("3", customers.get(2).getPersonId());
+    }
+
+    @Test
+    public void CustomerDataLoader_load_InvalidRecord() {
+        assertThrows(JsonParseException.class, () -> CustomerDataLoader.load(input("[\"12345\"]"), customer -> { }));
+    }
+
+    private static ByteArrayInputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
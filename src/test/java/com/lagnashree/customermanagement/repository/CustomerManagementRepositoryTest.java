@@ -0,0 +1,301 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.exception.PreconditionFailedException;
+import com.lagnashree.customermanagement.model.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerManagementRepositoryTest {
+    @TempDir
+    Path dataDir;
+    private BankDetailWriteAheadLog writeAheadLog;
+    private CustomerManagementRepository customerManagementRepository;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.copy(Paths.get("src/test/resources/Person.json"), dataDir.resolve("Person.json"));
+        customerManagementRepository = openRepository();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        writeAheadLog.close();
+    }
+
+    @Test
+    public void CustomerManagementRepository_findByPersonId_KnownPersonId() {
+        Customer customer = customerManagementRepository.findByPersonId("12345");
+        assertEquals("Peter", customer.getFirstName());
+        assertEquals("Nilson", customer.getLastName());
+        assertSame(customer, customerManagementRepository.findByPersonId("12345"));
+    }
+
+    @Test
+    public void CustomerManagementRepository_findByPersonId_UnknownPersonId() {
+        assertNull(customerManagementRepository.findByPersonId("123456"));
+        assertNull(customerManagementRepository.findRevision("123456"));
+        assertEquals(-1, customerManagementRepository.findVersion("123456"));
+    }
+
+    @Test
+    public void CustomerManagementRepository_reload_PublishesNewSnapshot() throws IOException {
+        Path dataFile = dataDir.resolve("customers.json");
+        Files.writeString(dataFile, "{\"personId\":\"1\",\"firstName\":\"Peter\"}\n", StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(customerManagementRepository, "filePath", dataFile.toString());
+        customerManagementRepository.reload();
+        Customer before = customerManagementRepository.findByPersonId("1");
+
+        Files.writeString(dataFile, "{\"personId\":\"1\",\"firstName\":\"Anna\"}\n{\"personId\":\"2\"}\n", StandardCharsets.UTF_8);
+        customerManagementRepository.reload();
+        assertEquals("Peter", before.getFirstName());
+        assertEquals("Anna", customerManagementRepository.findByPersonId("1").getFirstName());
+        assertNotNull(customerManagementRepository.findByPersonId("2"));
+        assertEquals(2, customerManagementRepository.getLastLoadStatistics().getRecords());
+    }
+
+    @Test
+    public void CustomerManagementRepository_reload_KeepsSnapshotOnInvalidFile() throws IOException {
+        Path dataFile = dataDir.resolve("customers.json");
+        Files.writeString(dataFile, "{\"personId\":\"1\",", StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(customerManagementRepository, "filePath", dataFile.toString());
+        assertThrows(IOException.class, () -> customerManagementRepository.reload());
+        assertNotNull(customerManagementRepository.findByPersonId("12345"));
+    }
+
+    @Test
+    public void CustomerManagementRepository_saveBankDetails_ReplayedAfterRestart() throws IOException {
+        Customer updated = customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null).getCustomer();
+        assertEquals("XYZ Bank", updated.getBank().getBankName());
+        assertEquals("Peter", updated.getFirstName());
+        assertEquals(updated, customerManagementRepository.findByPersonId("12345"));
+        assertNull(customerManagementRepository.saveBankDetails("123456", bank("XYZ Bank"), null));
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals("XYZ Bank", restarted.findByPersonId("12345").getBank().getBankName());
+    }
+
+    @Test
+    public void CustomerManagementRepository_compact_FoldsPatchesIntoDataFile() throws IOException {
+        customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null);
+        customerManagementRepository.compact();
+        assertEquals(0, writeAheadLog.size());
+        assertEquals("XYZ Bank", customerManagementRepository.findByPersonId("12345").getBank().getBankName());
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals("XYZ Bank", restarted.findByPersonId("12345").getBank().getBankName());
+        assertEquals("Malmö", restarted.findByPersonId("12345").getCity());
+        assertEquals("MS", restarted.findByPersonId("12345").getEducation().getCollege().getDegree());
+    }
+
+    @Test
+    public void CustomerManagementRepository_reload_KeepsPatchedBankOnReloadedRecord() throws IOException {
+        Path dataFile = dataDir.resolve("customers.json");
+        Files.writeString(dataFile, "{\"personId\":\"1\",\"firstName\":\"Peter\",\"city\":\"Malmö\"}\n", StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(customerManagementRepository, "filePath", dataFile.toString());
+        customerManagementRepository.reload();
+        customerManagementRepository.saveBankDetails("1", bank("XYZ Bank"), null);
+
+        // the data file is regenerated by another system before the patch is compacted
+        Files.writeString(dataFile, "{\"personId\":\"1\",\"firstName\":\"Anna\",\"city\":\"Lund\"}\n", StandardCharsets.UTF_8);
+        customerManagementRepository.reload();
+        Customer reloaded = customerManagementRepository.findByPersonId("1");
+        assertEquals("Anna", reloaded.getFirstName());
+        assertEquals("Lund", reloaded.getCity());
+        assertEquals("XYZ Bank", reloaded.getBank().getBankName());
+        assertEquals(1, reloaded.getVersion());
+
+        customerManagementRepository.compact();
+        String compacted = Files.readString(dataFile, StandardCharsets.UTF_8);
+        assertTrue(compacted.contains("\"firstName\":\"Anna\""), compacted);
+        assertTrue(compacted.contains("\"bankName\":\"XYZ Bank\""), compacted);
+    }
+
+    @Test
+    public void CustomerManagementRepository_compact_KeepsPatchAppendedDuringCompaction() throws Exception {
+        writeAheadLog.close();
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // holds a patch after its entry has been fsynced and before the repository has applied it
+        writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16) {
+            @Override
+            public void append(List<BankDetailPatch> entries) throws IOException {
+                super.append(entries);
+                appended.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+        ReflectionTestUtils.setField(repository, "filePath", dataDir.resolve("Person.json").toString());
+        repository.loadCustomerData();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<PatchedCustomer> patch = executor.submit(() -> repository.saveBankDetails("12345", bank("XYZ Bank"), null));
+            assertTrue(appended.await(5, TimeUnit.SECONDS));
+            Future<?> compaction = executor.submit(() -> {
+                repository.compact();
+                return null;
+            });
+            try {
+                // time for a compaction that does not wait for the patch to delete its write-ahead log entry
+                compaction.get(500, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // waiting for the patch
+            }
+            release.countDown();
+            assertEquals(1, patch.get(5, TimeUnit.SECONDS).getCustomer().getVersion());
+            compaction.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals("XYZ Bank", restarted.findByPersonId("12345").getBank().getBankName());
+        assertEquals(1, restarted.findVersion("12345"));
+    }
+
+    @Test
+    public void CustomerManagementRepository_saveBankDetails_ETagCheck() throws IOException {
+        String eTag = customerManagementRepository.findRevision("12345").getETag();
+        PatchedCustomer updated = customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), List.of("0-stale", eTag));
+        assertEquals(1, updated.getCustomer().getVersion());
+        assertEquals(customerManagementRepository.findRevision("12345"), updated.getRevision());
+        assertThrows(PreconditionFailedException.class,
+                () -> customerManagementRepository.saveBankDetails("12345", bank("ABC Bank"), List.of(eTag)));
+        assertEquals("XYZ Bank", customerManagementRepository.findByPersonId("12345").getBank().getBankName());
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals(1, restarted.findByPersonId("12345").getVersion());
+        // same version, but read from a data file loaded before the restart
+        assertThrows(PreconditionFailedException.class,
+                () -> restarted.saveBankDetails("12345", bank("ABC Bank"), List.of(updated.getRevision().getETag())));
+        assertEquals(2, restarted.saveBankDetails("12345", bank("ABC Bank"),
+                List.of(restarted.findRevision("12345").getETag())).getCustomer().getVersion());
+    }
+
+    @Test
+    public void CustomerManagementRepository_saveBankDetails_Batch() throws IOException {
+        List<Customer> updated = customerManagementRepository.saveBankDetails(
+                List.of("12345", "123456", "12345"), List.of(bank("XYZ Bank"), bank("ABC Bank"), bank("DEF Bank")));
+        assertEquals(1, updated.get(0).getVersion());
+        assertNull(updated.get(1));
+        assertEquals(2, updated.get(2).getVersion());
+        assertEquals("DEF Bank", customerManagementRepository.findByPersonId("12345").getBank().getBankName());
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals(2, restarted.findByPersonId("12345").getVersion());
+        assertEquals("DEF Bank", restarted.findByPersonId("12345").getBank().getBankName());
+    }
+
+    @Test
+    public void CustomerManagementRepository_findRevision_ChangesWithPatch() throws IOException {
+        CustomerRevision revision = customerManagementRepository.findRevision("12345");
+        assertEquals(0, revision.getVersion());
+        assertEquals(0, customerManagementRepository.findVersion("12345"));
+        assertNull(customerManagementRepository.findRevision("123456"));
+        assertEquals(-1, customerManagementRepository.findVersion("123456"));
+
+        customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null);
+        CustomerRevision patched = customerManagementRepository.findRevision("12345");
+        assertEquals(1, patched.getVersion());
+        assertNotEquals(revision.getETag(), patched.getETag());
+        assertFalse(patched.getLastModified().isBefore(revision.getLastModified()));
+    }
+
+    @Test
+    public void CustomerManagementRepository_search_FollowsPatchesAndRestart() throws IOException {
+        Map<CustomerSearchIndex.Field, List<String>> xyzBank = Map.of(CustomerSearchIndex.Field.BANK_NAME, List.of("xyz bank"));
+        assertEquals(List.of("12345"), customerManagementRepository.search(
+                Map.of(CustomerSearchIndex.Field.CITY, List.of("malmö")), true, 0, 10).getPersonIds());
+        assertEquals(0, customerManagementRepository.search(xyzBank, true, 0, 10).getTotal());
+
+        customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null);
+        assertEquals(List.of("12345"), customerManagementRepository.search(xyzBank, true, 0, 10).getPersonIds());
+
+        writeAheadLog.close();
+        CustomerManagementRepository restarted = openRepository();
+        assertEquals(List.of("12345"), restarted.search(xyzBank, true, 0, 10).getPersonIds());
+        restarted.compact();
+        assertEquals(List.of("12345"), restarted.search(xyzBank, true, 0, 10).getPersonIds());
+    }
+
+    @Test
+    public void CustomerManagementRepository_searchPhoneNumber_FindsCustomer() throws IOException {
+        PhoneNumberSearchResult result = customerManagementRepository.searchPhoneNumber("+46 78 394 62 73", false, 0, 10);
+        assertEquals(List.of(new PhoneNumberSearchResult.Match("+46783946273", "12345")), result.getMatches());
+        assertEquals(2, customerManagementRepository.searchPhoneNumber("+4", true, 0, 10).getTotal());
+
+        customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null);
+        customerManagementRepository.reload();
+        assertEquals(1, customerManagementRepository.searchPhoneNumber("01248745759", false, 0, 10).getTotal());
+    }
+
+    @Test
+    public void CustomerManagementRepository_loadCustomerData_CreatesMissingDataFile() throws IOException {
+        Path dataFile = dataDir.resolve("runtime").resolve("Person.json");
+        CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+        ReflectionTestUtils.setField(repository, "filePath", dataFile.toString());
+        repository.loadCustomerData();
+        assertTrue(Files.exists(dataFile));
+        assertEquals("Peter", repository.findByPersonId("12345").getFirstName());
+    }
+
+    @Test
+    public void CustomerManagementRepository_compact_RefusesSourceFile() throws IOException {
+        Path sourceFile = Files.createDirectories(dataDir.resolve("src")).resolve("Person.json");
+        Files.copy(dataDir.resolve("Person.json"), sourceFile);
+        ReflectionTestUtils.setField(customerManagementRepository, "filePath", sourceFile.toString());
+        customerManagementRepository.saveBankDetails("12345", bank("XYZ Bank"), null);
+
+        assertThrows(IOException.class, () -> customerManagementRepository.compact());
+        assertEquals(-1, Files.mismatch(dataDir.resolve("Person.json"), sourceFile));
+    }
+
+    private CustomerManagementRepository openRepository() throws IOException {
+        writeAheadLog = new BankDetailWriteAheadLog(dataDir.resolve("wal").toString(), 16);
+        CustomerManagementRepository repository = new CustomerManagementRepository(writeAheadLog);
+        ReflectionTestUtils.setField(repository, "filePath", dataDir.resolve("Person.json").toString());
+        repository.loadCustomerData();
+        return repository;
+    }
+
+    private static Customer.Bank bank(String bankName) {
+        return Customer.Bank.builder().bankName(bankName).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CustomerSearchIndexTest {
+    private static final int CUSTOMERS = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void CustomerSearchIndex_search_MatchesScan() throws IOException {
+        Path dataFile = writeCustomers();
+        Path snapshotFile = tempDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(dataFile, snapshotFile);
+        for (CustomerSnapshot snapshot : List.of(CustomerSnapshot.open(dataFile), CustomerSnapshot.open(snapshotFile))) {
+            CustomerSearchIndex index = CustomerSearchIndex.build(snapshot, Map.of());
+
+            // dense city and sparse bank, with several values of one field
+            Map<CustomerSearchIndex.Field, List<String>> criteria = new EnumMap<>(CustomerSearchIndex.Field.class);
+            criteria.put(CustomerSearchIndex.Field.CITY, List.of("city3", "CITY4"));
+            criteria.put(CustomerSearchIndex.Field.BANK_NAME, List.of("rare bank"));
+            assertMatches(snapshot, index, criteria, true, customer -> isCity(customer, 3, 4) && isRareBank(customer));
+            assertMatches(snapshot, index, criteria, false, customer -> isCity(customer, 3, 4) || isRareBank(customer));
+
+            criteria.clear();
+            criteria.put(CustomerSearchIndex.Field.PAYMENT_NETWORK, List.of("amex"));
+            criteria.put(CustomerSearchIndex.Field.COUNTRY_CODE, List.of("DE"));
+            assertMatches(snapshot, index, criteria, true, customer -> id(customer) % 7 == 0 && id(customer) % 2 == 1);
+
+            criteria.clear();
+            criteria.put(CustomerSearchIndex.Field.CITY, List.of("unknown"));
+            assertEquals(0, index.search(criteria, true, 0, 10).getTotal());
+        }
+    }
+
+    @Test
+    public void CustomerSearchIndex_search_Paginates() throws IOException {
+        CustomerSearchIndex index = CustomerSearchIndex.build(CustomerSnapshot.open(writeCustomers()), Map.of());
+        Map<CustomerSearchIndex.Field, List<String>> criteria = Map.of(CustomerSearchIndex.Field.COUNTRY_CODE, List.of("se"));
+        List<String> pages = new ArrayList<>();
+        for (int offset = 0; offset < CUSTOMERS; offset += 64) {
+            SearchResult page = index.search(criteria, true, offset, 64);
+            assertEquals(CUSTOMERS / 2, page.getTotal());
+            pages.addAll(page.getPersonIds());
+        }
+        assertEquals(CUSTOMERS / 2, pages.size());
+        assertEquals(CUSTOMERS / 2, pages.stream().distinct().count());
+        assertEquals(index.search(criteria, true, 0, CUSTOMERS).getPersonIds(), pages);
+    }
+
+    @Test
+    public void CustomerSearchIndex_reindex_ReplacesBankValues() throws IOException {
+        CustomerSnapshot snapshot = CustomerSnapshot.open(writeCustomers());
+        CustomerSearchIndex index = CustomerSearchIndex.build(snapshot, Map.of());
+        index.reindex("100", snapshot.findByPersonId("100").getBank(), Customer.Bank.builder().bankName("New Bank").build());
+
+        assertEquals(List.of("100"), index.search(Map.of(CustomerSearchIndex.Field.BANK_NAME, List.of("new bank")), true, 0, 10).getPersonIds());
+        assertTrue(!index.search(Map.of(CustomerSearchIndex.Field.BANK_NAME, List.of("rare bank")), true, 0, CUSTOMERS).getPersonIds().contains("100"));
+        assertTrue(!index.search(Map.of(CustomerSearchIndex.Field.PAYMENT_NETWORK, List.of("visa")), true, 0, CUSTOMERS).getPersonIds().contains("100"));
+        // address fields keep their values
+        assertTrue(index.search(Map.of(CustomerSearchIndex.Field.CITY, List.of("city0")), true, 0, CUSTOMERS).getPersonIds().contains("100"));
+
+        index.reindex("100", Customer.Bank.builder().bankName("New Bank").build(), Customer.Bank.builder().bankName("Other Bank").build());
+        assertEquals(0, index.search(Map.of(CustomerSearchIndex.Field.BANK_NAME, List.of("new bank")), true, 0, 10).getTotal());
+        assertEquals(List.of("100"), index.search(Map.of(CustomerSearchIndex.Field.BANK_NAME, List.of("other bank")), true, 0, 10).getPersonIds());
+    }
+
+    private static void assertMatches(CustomerSnapshot snapshot, CustomerSearchIndex index, Map<CustomerSearchIndex.Field, List<String>> criteria,
+                                      boolean matchAll, Predicate<Customer> expected) {
+        List<String> scanned = new ArrayList<>();
+        snapshot.forEach(customer -> {
+            if (expected.test(customer)) {
+                scanned.add(customer.getPersonId());
+            }
+        });
+        SearchResult result = index.search(criteria, matchAll, 0, CUSTOMERS);
+        assertTrue(scanned.size() > 0);
+        assertEquals(scanned.size(), result.getTotal());
+        assertEquals(scanned.stream().sorted().toList(), result.getPersonIds().stream().sorted().toList());
+    }
+
+    private static int id(Customer customer) {
+        return Integer.parseInt(customer.getPersonId());
+    }
+
+    private static boolean isCity(Customer customer, int... cities) {
+        for (int city : cities) {
+            if (id(customer) % 10 == city) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRareBank(Customer customer) {
+        return id(customer) % 100 < 20;
+    }
+
+    private Path writeCustomers() throws IOException {
+        Path dataFile = tempDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                String creditCards = i % 7 == 0
+                        ? "[{\"number\":\"1\",\"paymentNetwork\":\"MasterCard\"},{\"number\":\"2\",\"paymentNetwork\":\"AMEX\"}]"
+                        : "{\"number\":\"1\",\"paymentNetwork\":\"MasterCard\"}";
+                writer.write("{\"personId\":\"" + i + "\",\"city\":\"City" + (i % 10) + "\",\"countryCode\":\""
+                        + (i % 2 == 0 ? "SE" : "DE") + "\",\"bank\":{\"bankName\":\"" + (i % 100 < 20 ? "Rare Bank" : "Big Bank")
+                        + "\",\"debitCard\":{\"number\":\"0\",\"paymentNetwork\":\"VISA\"},\"creditCard\":" + creditCards + "}}\n");
+            }
+        }
+        return dataFile;
+    }
+}
@@ -0,0 +1,54 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class InMemoryCustomerSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void InMemoryCustomerSnapshot_load_PartitionedInParallel() throws IOException {
+        Path dataFile = tempDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 10000; i++) {
+                writer.write("{\"personId\":\"" + i + "\",\"firstName\":\"first" + i + "\"}\n");
+            }
+            // later records of the same personId replace earlier ones, wherever the file is split
+            writer.write("{\"personId\":\"0\",\"firstName\":\"replaced\"}\n");
+        }
+        InMemoryCustomerSnapshot snapshot = InMemoryCustomerSnapshot.load(dataFile, 4, 4);
+
+        assertEquals(10000, snapshot.size());
+        assertEquals("first9999", snapshot.findByPersonId("9999").getFirstName());
+        assertEquals("replaced", snapshot.findByPersonId("0").getFirstName());
+        assertNull(snapshot.findByPersonId("10000"));
+        assertEquals(10001, snapshot.getLoadStatistics().getRecords());
+        assertEquals(4, snapshot.getLoadStatistics().getSegments().size());
+        assertEquals(10000, snapshot.getLoadStatistics().getSegments().stream()
+                .mapToLong(LoadStatistics.Segment::getRecords).sum());
+        int[] count = new int[1];
+        snapshot.forEach(customer -> count[0]++);
+        assertEquals(10000, count[0]);
+    }
+
+    @Test
+    public void InMemoryCustomerSnapshot_load_SingleObjectFile() throws IOException {
+        InMemoryCustomerSnapshot snapshot = InMemoryCustomerSnapshot.load(Paths.get("src/test/resources/Person.json"), 4, 2);
+        Customer customer = snapshot.findByPersonId("12345");
+        assertEquals("Malmö", customer.getCity());
+        assertEquals(1, snapshot.size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MappedCustomerSnapshotTest {
+
+    @Test
+    public void MappedCustomerSnapshot_findByPersonId_ConvertedPersonJson(@TempDir Path dataDir) throws IOException {
+        Path snapshotFile = dataDir.resolve("Person.snapshot");
+        CustomerSnapshotWriter.convert(Paths.get("src/test/resources/Person.json"), snapshotFile);
+
+        CustomerSnapshot snapshot = CustomerSnapshot.open(snapshotFile);
+        assertInstanceOf(MappedCustomerSnapshot.class, snapshot);
+        assertEquals(1, snapshot.size());
+        Customer customer = snapshot.findByPersonId("12345");
+        assertEquals("Malmö", customer.getCity());
+        assertEquals("+46783946273", customer.getPhone().get(0).getRaw());
+        assertEquals("Mastero", customer.getBank().getCreditCard().get(0).getPaymentNetwork());
+        assertEquals(InMemoryCustomerSnapshot.load(Paths.get("src/test/resources/Person.json")).findByPersonId("12345"), customer);
+        assertNull(snapshot.findByPersonId("123456"));
+    }
+
+    @Test
+    public void MappedCustomerSnapshot_findByPersonId_ManyRecords(@TempDir Path dataDir) throws IOException {
+        Path jsonFile = dataDir.resolve("customers.ndjson");
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            json.append("{\"personId\":\"").append(i).append("\",\"houseNumber\":").append(i).append(",\"version\":").append(i)
+                    .append(",\"vip\":").append(i % 2 == 0).append("}\n");
+        }
+        json.append("{\"personId\":\"42\",\"houseNumber\":\"4.2\",\"city\":null}\n");
+        Files.writeString(jsonFile, json, StandardCharsets.UTF_8);
+        Path snapshotFile = dataDir.resolve("customers.snapshot");
+
+        LoadStatistics statistics = CustomerSnapshotWriter.convert(jsonFile, snapshotFile);
+        assertEquals(5000, statistics.getRecords());
+        assertEquals(1, statistics.getSkippedRecords());
+
+        MappedCustomerSnapshot snapshot = MappedCustomerSnapshot.open(snapshotFile);
+        assertEquals(5000, snapshot.size());
+        assertEquals("4999", snapshot.findByPersonId("4999").getHouseNumber());
+        assertEquals(4999L, snapshot.findByPersonId("4999").getVersion());
+        assertEquals("4.2", snapshot.findByPersonId("42").getHouseNumber());
+        assertEquals(0L, snapshot.findByPersonId("42").getVersion());
+        assertNull(snapshot.findByPersonId("42").getCity());
+        assertNull(snapshot.findByPersonId("5000"));
+    }
+
+    @Test
+    public void MappedCustomerSnapshot_findByPersonId_RecordsAcrossChunks(@TempDir Path dataDir) throws IOException {
+        Path jsonFile = dataDir.resolve("customers.ndjson");
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            json.append("{\"personId\":\"").append(i).append("\",\"city\":\"City ").append(i).append("\"}\n");
+        }
+        Files.writeString(jsonFile, json, StandardCharsets.UTF_8);
+        Path snapshotFile = dataDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(jsonFile, snapshotFile);
+
+        // 256 byte chunks, so records and index slots cross chunk boundaries as they do at 1 GiB in large files
+        MappedCustomerSnapshot snapshot = MappedCustomerSnapshot.open(snapshotFile, 8);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("City " + i, snapshot.findByPersonId(String.valueOf(i)).getCity());
+        }
+        assertNull(snapshot.findByPersonId("5000"));
+        int[] records = {0};
+        snapshot.forEach(customer -> records[0]++);
+        assertEquals(5000, records[0]);
+    }
+
+    @Test
+    public void MappedCustomerSnapshot_findByPersonId_DecodesOnlyViewFields(@TempDir Path dataDir) throws IOException {
+        Path snapshotFile = dataDir.resolve("Person.snapshot");
+        CustomerSnapshotWriter.convert(Paths.get("src/test/resources/Person.json"), snapshotFile);
+        MappedCustomerSnapshot snapshot = MappedCustomerSnapshot.open(snapshotFile);
+
+        Customer bankView = snapshot.findByPersonId("12345", CustomerView.BANK_DETAILS);
+        assertEquals("Peter", bankView.getFirstName());
+        assertEquals("xyz", bankView.getBank().getBankName());
+        assertNull(bankView.getCity());
+        assertNull(bankView.getPhone());
+        assertNull(bankView.getEducation());
+
+        Customer personalView = snapshot.findByPersonId("12345", CustomerView.PERSONAL_DETAILS);
+        assertNull(personalView.getBank());
+        assertNull(personalView.getEducation());
+        assertEquals(4, personalView.getPhone().size());
+
+        Customer wholeRecord = snapshot.findByPersonId("12345", CustomerView.CUSTOMER);
+        assertNotNull(wholeRecord.getBank());
+        assertNotNull(wholeRecord.getEducation());
+    }
+
+    @Test
+    public void CustomerSnapshot_open_JsonFileLoadsOnHeap() throws IOException {
+        assertInstanceOf(InMemoryCustomerSnapshot.class, CustomerSnapshot.open(Paths.get("src/test/resources/Person.json")));
+    }
+}
@@ -0,0 +1,61 @@
+package com.lagnashree.customermanagement.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersonIdFilterTest {
+    private static final int CUSTOMERS = 20_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void PersonIdFilter_mightContain_NoFalseNegatives() throws IOException {
+        Path dataFile = writeCustomers();
+        Path snapshotFile = tempDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(dataFile, snapshotFile);
+        CustomerSnapshot snapshot = CustomerSnapshot.open(snapshotFile);
+        PersonIdFilter filter = PersonIdFilter.build(snapshot, 0.01);
+
+        for (int i = 0; i < CUSTOMERS; i++) {
+            assertTrue(filter.mightContain(String.valueOf(1_000_000 + i)));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < CUSTOMERS; i++) {
+            if (filter.mightContain(String.valueOf(2_000_000 + i))) {
+                falsePositives++;
+            }
+        }
+        // 1% expected, with plenty of room for the variance of 20000 trials
+        assertTrue(falsePositives < CUSTOMERS / 50, "false positives: " + falsePositives);
+        assertTrue(filter.covers(snapshot));
+        assertFalse(filter.covers(CustomerSnapshot.open(dataFile)));
+    }
+
+    @Test
+    public void PersonIdFilter_build_RejectsInvalidRate() throws IOException {
+        CustomerSnapshot snapshot = CustomerSnapshot.open(writeCustomers());
+        assertThrows(IllegalArgumentException.class, () -> PersonIdFilter.build(snapshot, 0));
+        assertThrows(IllegalArgumentException.class, () -> PersonIdFilter.build(snapshot, 1));
+    }
+
+    private Path writeCustomers() throws IOException {
+        Path dataFile = tempDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                writer.write("{\"personId\":\"" + (1_000_000 + i) + "\",\"city\":\"Malmö\"}\n");
+            }
+        }
+        return dataFile;
+    }
+}
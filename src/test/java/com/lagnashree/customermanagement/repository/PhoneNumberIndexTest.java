@@ -0,0 +1,108 @@
+package com.lagnashree.customermanagement.repository;
+
+import com.lagnashree.customermanagement.model.PhoneNumber;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PhoneNumberIndexTest {
+    private static final int CUSTOMERS = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void PhoneNumberIndex_search_MatchesScan() throws IOException {
+        Path dataFile = writeCustomers();
+        Path snapshotFile = tempDir.resolve("customers.snapshot");
+        CustomerSnapshotWriter.convert(dataFile, snapshotFile);
+        for (CustomerSnapshot snapshot : List.of(CustomerSnapshot.open(dataFile), CustomerSnapshot.open(snapshotFile))) {
+            PhoneNumberIndex index = PhoneNumberIndex.build(snapshot);
+
+            for (String query : List.of("+46701000042", "+4670100004", "+358", "+3", "+1", "0701000", "+7")) {
+                assertMatches(snapshot, index, query, false);
+                assertMatches(snapshot, index, query, true);
+            }
+            // notation does not matter, the query is normalised like the numbers
+            assertEquals(List.of(new PhoneNumberSearchResult.Match("+46701000042", "42")),
+                    index.search("+46 (70) 100-00-42", false, 0, 10).getMatches());
+            assertEquals(0, index.search("+4670100004", false, 0, 10).getTotal());
+            assertEquals(0, index.search("", true, 0, 10).getTotal());
+        }
+    }
+
+    @Test
+    public void PhoneNumberIndex_search_Paginates() throws IOException {
+        PhoneNumberIndex index = PhoneNumberIndex.build(CustomerSnapshot.open(writeCustomers()));
+        List<PhoneNumberSearchResult.Match> pages = new ArrayList<>();
+        for (int offset = 0; offset < CUSTOMERS; offset += 64) {
+            PhoneNumberSearchResult page = index.search("+46", true, offset, 64);
+            assertEquals(CUSTOMERS / 2, page.getTotal());
+            pages.addAll(page.getMatches());
+        }
+        assertEquals(index.search("+46", true, 0, CUSTOMERS).getMatches(), pages);
+        assertEquals(0, index.search("+46", true, CUSTOMERS, 64).getMatches().size());
+        assertEquals(0, index.search("+46", true, Integer.MAX_VALUE, 64).getMatches().size());
+    }
+
+    @Test
+    public void PhoneNumberIndex_build_SkipsDuplicates() throws IOException {
+        Path dataFile = tempDir.resolve("duplicates.ndjson");
+        Files.writeString(dataFile, "{\"personId\":\"7\",\"phone\":[\"+1 202 555 0173\",\"+12025550173\"]}\n", StandardCharsets.UTF_8);
+        PhoneNumberIndex index = PhoneNumberIndex.build(CustomerSnapshot.open(dataFile));
+
+        assertEquals(List.of(new PhoneNumberSearchResult.Match("+12025550173", "7")),
+                index.search("+1 202 555 0173", false, 0, 10).getMatches());
+        assertEquals(1, index.size());
+    }
+
+    private static void assertMatches(CustomerSnapshot snapshot, PhoneNumberIndex index, String query, boolean prefix) {
+        String normalized = PhoneNumber.of(query).getNormalized();
+        List<PhoneNumberSearchResult.Match> scanned = new ArrayList<>();
+        snapshot.forEach(customer -> customer.getPhone().stream()
+                .map(PhoneNumber::getNormalized)
+                .distinct()
+                .filter(number -> prefix ? number.startsWith(normalized) : number.equals(normalized))
+                .forEach(number -> scanned.add(new PhoneNumberSearchResult.Match(number, customer.getPersonId()))));
+        PhoneNumberSearchResult result = index.search(query, prefix, 0, 2 * CUSTOMERS);
+        assertEquals(scanned.size(), result.getTotal(), query);
+        List<PhoneNumberSearchResult.Match> matches = result.getMatches();
+        assertEquals(scanned.size(), matches.size(), query);
+        assertTrue(matches.containsAll(scanned), query);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).getPhoneNumber().compareTo(matches.get(i).getPhoneNumber()) <= 0, query);
+        }
+    }
+
+    /**
+     * Customers with an even id have a Swedish mobile number, the others a Finnish one, every tenth customer also a
+     * national number and every hundredth a US number.
+     */
+    private Path writeCustomers() throws IOException {
+        Path dataFile = tempDir.resolve("customers.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < CUSTOMERS; i++) {
+                List<String> phone = new ArrayList<>();
+                phone.add(i % 2 == 0 ? String.format("+46 70 %07d", 1000000 + i) : String.format("+358-40-%07d", 1000000 + i));
+                if (i % 10 == 0) {
+                    phone.add(String.format("070%07d", 1000000 + i));
+                }
+                if (i % 100 == 0) {
+                    phone.add(String.format("+1 (202) 555-%04d", i));
+                }
+                writer.write("{\"personId\":\"" + i + "\",\"phone\":[\"" + String.join("\",\"", phone) + "\"]}\n");
+            }
+        }
+        return dataFile;
+    }
+}
@@ -0,0 +1,100 @@
+package com.lagnashree.customermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lagnashree.customermanagement.exception.InternalException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BankDetailBulkImporterTest {
+    private static final String PATCH = "{\"personId\":\"%s\",\"newBankDetails\":{\"name\":\"XYZ Bank\",\"account\":\"123456789\","
+            + "\"branch\":\"Branch123\",\"debitCard\":{\"number\":\"1234 5678 9101 1122\",\"paymentNetwork\":\"VISA\"}},\"creditCards\":[]}";
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final CustomerManagementService customerManagementService = Mockito.mock(CustomerManagementService.class);
+
+    @Test
+    public void BankDetailBulkImporter_importPatches_PerRecordOutcomes() throws IOException {
+        Mockito.when(customerManagementService.patchBankDetails(ArgumentMatchers.anyList()))
+                .thenReturn(List.of(1L))
+                .thenReturn(Arrays.asList((Long) null))
+                .thenReturn(List.of(2L));
+        String input = String.format(PATCH, "12345") + "\n"
+                + "{not json\n"
+                + "\n"
+                + String.format(PATCH, "123456") + "\n"
+                + "{\"personId\":\"12345\"}\n"
+                + String.format(PATCH, "12345") + "\n";
+
+        List<JsonNode> lines = importPatches(importer(2), input);
+
+        assertEquals(6, lines.size());
+        assertEquals("SUCCESS", lines.get(0).get("status").asText());
+        assertEquals(1, lines.get(0).get("version").asLong());
+        assertEquals(1, lines.get(0).get("line").asLong());
+        assertEquals("FAIL", lines.get(1).get("status").asText());
+        assertTrue(lines.get(1).get("error").asText().startsWith("invalid JSON"));
+        assertEquals(4, lines.get(2).get("line").asLong());
+        assertEquals("invalid person id", lines.get(2).get("error").asText());
+        assertEquals("creditCards must not be null, newBankDetails must not be null", lines.get(3).get("error").asText());
+        assertEquals(2, lines.get(4).get("version").asLong());
+        JsonNode summary = lines.get(5).get("summary");
+        assertEquals(5, summary.get("records").asLong());
+        assertEquals(2, summary.get("succeeded").asLong());
+        assertEquals(3, summary.get("failed").asLong());
+        Mockito.verify(customerManagementService, Mockito.times(3)).patchBankDetails(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    public void BankDetailBulkImporter_importPatches_NullRecord() throws IOException {
+        Mockito.when(customerManagementService.patchBankDetails(ArgumentMatchers.anyList())).thenReturn(List.of(1L));
+
+        List<JsonNode> lines = importPatches(importer(500), "null\n" + String.format(PATCH, "12345") + "\n");
+
+        assertEquals(3, lines.size());
+        assertEquals("FAIL", lines.get(0).get("status").asText());
+        assertEquals("invalid JSON: expected an object", lines.get(0).get("error").asText());
+        assertEquals("SUCCESS", lines.get(1).get("status").asText());
+        assertEquals(1, lines.get(2).get("summary").get("failed").asLong());
+    }
+
+    @Test
+    public void BankDetailBulkImporter_importPatches_FailedBatch() throws IOException {
+        Mockito.when(customerManagementService.patchBankDetails(ArgumentMatchers.anyList()))
+                .thenThrow(new InternalException("Internal Server Error"));
+
+        List<JsonNode> lines = importPatches(importer(500), String.format(PATCH, "12345") + "\n");
+
+        assertEquals("Internal Server Error", lines.get(0).get("error").asText());
+        assertEquals(1, lines.get(1).get("summary").get("failed").asLong());
+    }
+
+    private BankDetailBulkImporter importer(int batchSize) {
+        return new BankDetailBulkImporter(customerManagementService, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), batchSize, 1);
+    }
+
+    private List<JsonNode> importPatches(BankDetailBulkImporter importer, String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importer.importPatches(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), () -> out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -1,20 +1,33 @@
 package com.lagnashree.customermanagement.service;
 
+import com.lagnashree.customermanagement.cache.CustomerViewCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lagnashree.customermanagement.dto.*;
+import com.lagnashree.customermanagement.exception.InternalException;
+import com.lagnashree.customermanagement.exception.CustomerNotFoundException;
 import com.lagnashree.customermanagement.exception.InvalidInputException;
+import com.lagnashree.customermanagement.model.Customer;
+import com.lagnashree.customermanagement.model.PhoneNumber;
 import com.lagnashree.customermanagement.repository.CustomerManagementRepository;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import com.lagnashree.customermanagement.repository.CustomerRevision;
+import com.lagnashree.customermanagement.repository.CustomerSearchIndex;
+import com.lagnashree.customermanagement.repository.CustomerView;
+import com.lagnashree.customermanagement.repository.PatchedCustomer;
+import com.lagnashree.customermanagement.repository.PhoneNumberSearchResult;
+import com.lagnashree.customermanagement.repository.SearchResult;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -25,13 +38,12 @@ public class CustomerManagementServiceTest {
     private CustomerManagementService customerManagementService;
     @Mock
     CustomerManagementRepository customerManagementRepository;
+    @Mock
+    CustomerViewCache customerViewCache;
     @Test
-    public void CustomerManagementService_GetCustomerPersonalDetails_ValidResponse() throws ParseException, IOException {
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+    public void CustomerManagementService_GetCustomerPersonalDetails_ValidResponse() throws IOException {
+        Customer customerObj = readPerson();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.PERSONAL_DETAILS)).thenReturn(customerObj);
         PersonalDetailDTO personalDetail = customerManagementService.getCustomerPersonalDetails("12345");
         assertEquals("Peter Nilson", personalDetail.getName());
         assertEquals("12345", personalDetail.getPersonId());
@@ -45,12 +57,22 @@ public class CustomerManagementServiceTest {
         assertEquals("+46", personalDetail.getContact().get(0).getCode());
     }
     @Test
-    public void CustomerManagementService_getCustomerBankDetails_ValidResponse() throws ParseException, IOException {
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+    public void CustomerManagementService_GetCustomerPersonalDetails_VariableLengthCallingCodes() throws IOException {
+        Customer customerObj = readPerson().toBuilder()
+                .phone(List.of(PhoneNumber.of("+1 202 555 0173"), PhoneNumber.of("0401234567"), PhoneNumber.of("+358401234567")))
+                .build();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.PERSONAL_DETAILS)).thenReturn(customerObj);
+        PersonalDetailDTO personalDetail = customerManagementService.getCustomerPersonalDetails("12345");
+        assertEquals(2, personalDetail.getContact().size());
+        assertEquals("+1", personalDetail.getContact().get(0).getCode());
+        assertEquals("2025550173", personalDetail.getContact().get(0).getNumber());
+        assertEquals("+358", personalDetail.getContact().get(1).getCode());
+        assertEquals("401234567", personalDetail.getContact().get(1).getNumber());
+    }
+    @Test
+    public void CustomerManagementService_getCustomerBankDetails_ValidResponse() throws IOException {
+        Customer customerObj = readPerson();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.BANK_DETAILS)).thenReturn(customerObj);
         BankDetailDTO bankDetail = customerManagementService.getCustomerBankDetails("12345");
         assertEquals("Peter Nilson", bankDetail.getName());
         assertEquals("12345", bankDetail.getPersonId());
@@ -62,12 +84,9 @@ public class CustomerManagementServiceTest {
         assertEquals("Mastero", bankDetail.getCard().get(0).getPaymentNetwork());
     }
     @Test
-    public void CustomerManagementService_getCustomerQualificationsDetails_ValidResponse() throws ParseException, IOException {
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+    public void CustomerManagementService_getCustomerQualificationsDetails_ValidResponse() throws IOException {
+        Customer customerObj = readPerson();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.QUALIFICATIONS)).thenReturn(customerObj);
         QualificationDTO qualification = customerManagementService.getCustomerQualificationsDetails("12345");
         assertEquals("Peter Nilson", qualification.getName());
         assertEquals("xyz school", qualification.getQualifications().getSchool().getName());
@@ -78,12 +97,12 @@ public class CustomerManagementServiceTest {
 
     }
     @Test
-    public void CustomerManagementService_patchBankDetails_ValidResponse() throws ParseException, IOException {
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+    public void CustomerManagementService_patchBankDetails_ValidResponse() throws IOException {
+        Customer customerObj = readPerson();
+        // the repository returns the customer with the new bank details merged in
+        Mockito.when(customerManagementRepository.saveBankDetails(Mockito.eq("12345"), Mockito.any(), Mockito.isNull()))
+                .thenAnswer(invocation -> new PatchedCustomer(customerObj.toBuilder().bank(invocation.getArgument(1)).build(),
+                        new CustomerRevision(0, "0-abc", Instant.EPOCH)));
         PatchBankDetailDTO patchBankDetail = PatchBankDetailDTO.builder()
                 .personId("12345")
                 .newBankDetails(PatchBankDetailDTO.NewBankDetails.builder()
@@ -107,6 +126,7 @@ public class CustomerManagementServiceTest {
                 ))
                 .build();
         CustomerDTO customerDTO = customerManagementService.patchBankDetails(patchBankDetail);
+        assertEquals("0-abc", customerDTO.getEtag());
         assertEquals("Peter", customerDTO.getFirstName());
         assertEquals("SE", customerDTO.getCountryCode());
         assertEquals(4, customerDTO.getPhone().size());
@@ -123,39 +143,147 @@ public class CustomerManagementServiceTest {
         assertEquals("Abc collage", customerDTO.getEducation().getCollege().getName());
         assertEquals("Abc Malmö 72863 Sweden", customerDTO.getEducation().getCollege().getAddress());
         assertEquals("MS", customerDTO.getEducation().getCollege().getDegree());
+        Mockito.verify(customerViewCache).beginInvalidation("12345");
+        Mockito.verify(customerViewCache).endInvalidation("12345");
+
+    }
+    @Test
+    public void CustomerManagementService_getCustomerBankDetails_CachedView() throws InvalidInputException, InternalException {
+        BankDetailDTO cachedBankDetail = BankDetailDTO.builder().personId("12345").build();
+        Mockito.when(customerViewCache.get("12345", CustomerView.BANK_DETAILS, BankDetailDTO.class)).thenReturn(cachedBankDetail);
+        assertEquals(cachedBankDetail, customerManagementService.getCustomerBankDetails("12345"));
+        Mockito.verifyNoInteractions(customerManagementRepository);
+    }
+    @Test
+    public void CustomerManagementService_getCustomerFullProfile_ValidResponse() throws IOException {
+        Customer customerObj = readPerson();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.FULL_PROFILE)).thenReturn(customerObj);
+        FullProfileDTO fullProfile = customerManagementService.getCustomerFullProfile("12345");
+        assertEquals("Peter Nilson", fullProfile.getPersonalDetails().getName());
+        assertEquals("Malmö", fullProfile.getPersonalDetails().getAddress().getCity());
+        assertEquals("xyz", fullProfile.getBankDetails().getBank().getName());
+        assertEquals(2, fullProfile.getBankDetails().getCard().size());
+        assertEquals("MS", fullProfile.getQualifications().getQualifications().getCollege().getDegree());
+        Mockito.verify(customerManagementRepository, Mockito.times(1)).findByPersonId("12345", CustomerView.FULL_PROFILE);
+    }
+    @Test
+    public void CustomerManagementService_exportCustomerDetails_FiltersCustomers() throws IOException {
+        Customer customerObj = readPerson();
+        Customer otherCustomerObj = customerObj.toBuilder().personId("67890").country("Norway").build();
+        Mockito.doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(customerObj);
+            consumer.accept(otherCustomerObj);
+            return null;
+        }).when(customerManagementRepository).forEachCustomer(Mockito.any());
+        List<Object> exported = new ArrayList<>();
+        customerManagementService.exportCustomerDetails(CustomerView.CUSTOMER, Map.of("country", "sweden"), exported::add);
+        assertEquals(1, exported.size());
+        CustomerDTO customerDTO = (CustomerDTO) exported.get(0);
+        assertEquals("12345", customerDTO.getPersonId());
+        assertEquals("xyz", customerDTO.getBank().getBankName());
+        assertEquals("Mastero", customerDTO.getBank().getCreditCard().get(0).getPaymentNetwork());
+        assertEquals("MS", customerDTO.getEducation().getCollege().getDegree());
+        assertEquals(CustomerView.BANK_DETAILS, customerManagementService.getExportView("bankDetails"));
+        assertThrows(InvalidInputException.class, () -> customerManagementService.getExportView("address"));
+    }
+    @Test
+    public void CustomerManagementService_getCustomerDetails_BatchFetchesEachCustomerOnce() throws IOException {
+        Customer customerObj = readPerson();
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.CUSTOMER)).thenReturn(customerObj);
+        Mockito.when(customerManagementRepository.findByPersonId("123456", CustomerView.BANK_DETAILS)).thenReturn(null);
+        BatchDetailRequestDTO batchRequest = BatchDetailRequestDTO.builder()
+                .items(List.of(
+                        BatchDetailRequestDTO.Item.builder().personId("12345").requestType("personalDetails").build(),
+                        BatchDetailRequestDTO.Item.builder().personId("123456").requestType("bankDetails").build(),
+                        BatchDetailRequestDTO.Item.builder().personId("12345").requestType("bankDetails").build(),
+                        BatchDetailRequestDTO.Item.builder().personId("12345").requestType("address").build(),
+                        BatchDetailRequestDTO.Item.builder().personId("12345").requestType("qualifications").build()))
+                .build();
+        List<BatchDetailResponseDTO.Result> results = customerManagementService.getCustomerDetails(batchRequest).getResults();
+        assertEquals(5, results.size());
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertEquals("Peter Nilson", ((PersonalDetailDTO) results.get(0).getDetails()).getName());
+        assertEquals("FAIL", results.get(1).getStatus());
+        assertEquals("invalid person id", results.get(1).getError());
+        assertEquals("xyz", ((BankDetailDTO) results.get(2).getDetails()).getBank().getName());
+        assertEquals("invalid requestType value", results.get(3).getError());
+        assertEquals("MS", ((QualificationDTO) results.get(4).getDetails()).getQualifications().getCollege().getDegree());
+        Mockito.verify(customerManagementRepository, Mockito.times(1)).findByPersonId("12345", CustomerView.CUSTOMER);
+    }
+    @Test
+    public void CustomerManagementService_searchCustomers_BuildsViewsOfPage() throws IOException, InvalidInputException {
+        Customer customerObj = readPerson();
+        Map<CustomerSearchIndex.Field, List<String>> criteria = Map.of(CustomerSearchIndex.Field.CITY, List.of("Malmö"));
+        Mockito.when(customerManagementRepository.search(criteria, false, 20, 10)).thenReturn(new SearchResult(21, List.of("12345")));
+        Mockito.when(customerManagementRepository.findByPersonId("12345", CustomerView.PERSONAL_DETAILS)).thenReturn(customerObj);
+        SearchResultDTO searchResult = customerManagementService.searchCustomers(criteria, "any", "personalDetails", 2, 10);
+        assertEquals(21, searchResult.getTotal());
+        assertEquals(1, searchResult.getResults().size());
+        assertEquals("Peter Nilson", ((PersonalDetailDTO) searchResult.getResults().get(0)).getName());
 
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchCustomers(
+                Map.of(CustomerSearchIndex.Field.CITY, List.of()), "all", "personalDetails", 0, 10));
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchCustomers(criteria, "some", "personalDetails", 0, 10));
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchCustomers(criteria, "all", "personalDetails", 0, 1001));
     }
     @Test
-    public void CustomerManagementService_GetCustomerPersonalDetails_InvalidPersonId() throws ParseException, IOException  {
+    public void CustomerManagementService_searchPhoneNumber_ReturnsMatchesOfPage() throws InvalidInputException {
+        Mockito.when(customerManagementRepository.searchPhoneNumber("+46 78", true, 50, 50)).thenReturn(new PhoneNumberSearchResult(51,
+                List.of(new PhoneNumberSearchResult.Match("+46783946273", "12345"))));
+        PhoneNumberSearchResultDTO searchResult = customerManagementService.searchPhoneNumber("+46 78", "prefix", 1, 50);
+        assertEquals(51, searchResult.getTotal());
+        assertEquals("+46783946273", searchResult.getResults().get(0).getPhoneNumber());
+        assertEquals("12345", searchResult.getResults().get(0).getPersonId());
 
-            JSONParser jsonParser= new JSONParser();
-            String file ="src/test/resources/Person.json";
-            FileReader reader= new FileReader(file);
-            Object customerObj= jsonParser.parse(reader);
-            Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
-            assertThrows(InvalidInputException.class, () ->
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchPhoneNumber(" ", "exact", 0, 10));
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchPhoneNumber("+46", "starts", 0, 10));
+        assertThrows(InvalidInputException.class, () -> customerManagementService.searchPhoneNumber("+46", "prefix", -1, 10));
+        Mockito.verify(customerManagementRepository, Mockito.never()).findByPersonId(Mockito.anyString(), Mockito.any());
+    }
+    @Test
+    public void CustomerManagementService_GetCustomerPersonalDetails_InvalidPersonId() throws IOException  {
+
+            Mockito.when(customerManagementRepository.findByPersonId("123456", CustomerView.PERSONAL_DETAILS)).thenReturn(null);
+            CustomerNotFoundException exception = assertThrows(CustomerNotFoundException.class, () ->
                     customerManagementService.getCustomerPersonalDetails("123456"));
+            assertEquals("invalid person id", exception.getMessage());
+            assertEquals(0, exception.getStackTrace().length);
     }
     @Test
-    public void CustomerManagementService_getCustomerBankDetails_InvalidPersonId() throws ParseException, IOException  {
+    public void CustomerManagementService_getCustomerBankDetails_InvalidPersonId() throws IOException  {
 
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+        Mockito.when(customerManagementRepository.findByPersonId("123456", CustomerView.BANK_DETAILS)).thenReturn(null);
         assertThrows(InvalidInputException.class, () ->
                 customerManagementService.getCustomerBankDetails("123456"));
     }
     @Test
-    public void CustomerManagementService_getCustomerQualificationsDetails_InvalidPersonId() throws ParseException, IOException  {
+    public void CustomerManagementService_getCustomerQualificationsDetails_InvalidPersonId() throws IOException  {
 
-        JSONParser jsonParser= new JSONParser();
-        String file ="src/test/resources/Person.json";
-        FileReader reader= new FileReader(file);
-        Object customerObj= jsonParser.parse(reader);
-        Mockito.when(customerManagementRepository.readCustomerData()).thenReturn((JSONObject) customerObj);
+        Mockito.when(customerManagementRepository.findByPersonId("123456", CustomerView.QUALIFICATIONS)).thenReturn(null);
         assertThrows(InvalidInputException.class, () ->
                 customerManagementService.getCustomerQualificationsDetails("123456"));
     }
+    @Test
+    public void CustomerManagementService_patchBankDetails_InvalidPersonId() {
+        PatchBankDetailDTO patchBankDetail = PatchBankDetailDTO.builder()
+                .personId("123456")
+                .newBankDetails(PatchBankDetailDTO.NewBankDetails.builder()
+                        .name("XYZ Bank")
+                        .account("123456789")
+                        .branch("Branch123")
+                        .debitCard(PatchBankDetailDTO.NewBankDetails.DebitCard.builder()
+                                .number("1234 5678 9101 1122")
+                                .paymentNetwork("VISA")
+                                .build())
+                        .build())
+                .creditCards(List.of())
+                .build();
+        assertThrows(InvalidInputException.class, () ->
+                customerManagementService.patchBankDetails(patchBankDetail));
+    }
+
+    private static Customer readPerson() throws IOException {
+        return new ObjectMapper().readValue(new File("src/test/resources/Person.json"), Customer.class);
+    }
 }